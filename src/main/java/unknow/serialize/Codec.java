@@ -29,4 +29,54 @@ public interface Codec {
 	 * @throws IOException on IOException
 	 */
 	Object read(BinaryFormat format, InputStream in) throws IOException;
+
+	/**
+	 * skip an object without materializing it, default to read it and discard the result
+	 * 
+	 * @param in the input
+	 * @throws IOException on IOException
+	 */
+	default void skip(BinaryFormat format, InputStream in) throws IOException {
+		read(format, in);
+	}
+
+	/**
+	 * write the values as columns, the values are all instance of the codec class and not null, default to write them one
+	 * after the other
+	 * 
+	 * @param values the values
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	default void writeColumns(BinaryFormat format, Object[] values, OutputStream out) throws IOException {
+		for (int i = 0; i < values.length; i++)
+			write(format, values[i], out);
+	}
+
+	/**
+	 * read values written by {@link #writeColumns(BinaryFormat, Object[], OutputStream)}
+	 * 
+	 * @param in the input
+	 * @param n  the number of values
+	 * @return the values
+	 * @throws IOException on IOException
+	 */
+	default Object[] readColumns(BinaryFormat format, InputStream in, int n) throws IOException {
+		Object[] values = new Object[n];
+		for (int i = 0; i < n; i++)
+			values[i] = read(format, in);
+		return values;
+	}
+
+	/**
+	 * skip values written by {@link #writeColumns(BinaryFormat, Object[], OutputStream)}
+	 * 
+	 * @param in the input
+	 * @param n  the number of values
+	 * @throws IOException on IOException
+	 */
+	default void skipColumns(BinaryFormat format, InputStream in, int n) throws IOException {
+		for (int i = 0; i < n; i++)
+			skip(format, in);
+	}
 }
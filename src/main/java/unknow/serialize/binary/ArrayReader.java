@@ -0,0 +1,81 @@
+package unknow.serialize.binary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
+
+/**
+ * read an array written by {@link ArrayWriter}
+ * 
+ * @author unknow
+ * @param <T> the element type
+ */
+public class ArrayReader<T> implements Closeable {
+	private final BinaryFormat format;
+	private final InputStream in;
+	private final Class<T> type;
+	/** element left in the current chunk */
+	private int remaining;
+	private boolean end;
+
+	/**
+	 * create a new ArrayReader
+	 * 
+	 * @param format the format to use
+	 * @param in     the input
+	 * @param type   the element type
+	 */
+	public ArrayReader(BinaryFormat format, InputStream in, Class<T> type) {
+		this.format = format;
+		this.in = in;
+		this.type = type;
+	}
+
+	/**
+	 * @return true if there is more element
+	 * @throws IOException on IOException
+	 */
+	public boolean hasNext() throws IOException {
+		if (remaining == 0 && !end) {
+			remaining = IoUtils.readInt(in);
+			if (remaining == 0)
+				end = true;
+			else
+				IoUtils.skipVarint(in); // chunk length
+		}
+		return remaining > 0;
+	}
+
+	/**
+	 * @return the next element
+	 * @throws IOException on IOException
+	 */
+	public T next() throws IOException {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		remaining--;
+		Object o = format.read(in);
+		if (o != null && !type.isInstance(o))
+			throw new IOException("object not a " + type.getName());
+		return type.cast(o);
+	}
+
+	/**
+	 * skip the remaining elements, whole chunks are skipped without decoding, the underlying input isn't closed
+	 */
+	@Override
+	public void close() throws IOException {
+		while (remaining > 0) {
+			format.skip(in);
+			remaining--;
+		}
+		while (!end) {
+			int count = IoUtils.readInt(in);
+			if (count == 0)
+				end = true;
+			else
+				IoUtils.skip(in, IoUtils.readInt(in));
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package unknow.serialize.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * write an array of unknown size as chunks of [element count][byte length][elements] ended by an empty chunk, see
+ * {@link ArrayReader}
+ * 
+ * @author unknow
+ * @param <T> the element type
+ */
+public class ArrayWriter<T> implements Flushable, Closeable {
+	/** default number of element per chunk */
+	public static final int CHUNK = 1024;
+
+	private final BinaryFormat format;
+	private final OutputStream out;
+	private final Class<T> type;
+	private final int max;
+	private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+	private int count;
+	private boolean closed;
+
+	/**
+	 * create a new ArrayWriter
+	 * 
+	 * @param format the format to use
+	 * @param out    the output
+	 * @param type   the element type
+	 * @param max    max number of element per chunk
+	 */
+	public ArrayWriter(BinaryFormat format, OutputStream out, Class<T> type, int max) {
+		if (max <= 0)
+			throw new IllegalArgumentException("max <= 0");
+		this.format = format;
+		this.out = out;
+		this.type = type;
+		this.max = max;
+	}
+
+	/**
+	 * append an element
+	 * 
+	 * @param o the element
+	 * @throws IOException on IOException
+	 */
+	public void write(T o) throws IOException {
+		if (closed)
+			throw new IOException("writer closed");
+		if (o != null && !type.isInstance(o))
+			throw new IOException("object not a " + type.getName());
+		format.write(o, chunk);
+		if (++count == max)
+			writeChunk();
+	}
+
+	/**
+	 * write the pending elements as a chunk and flush the output
+	 */
+	@Override
+	public void flush() throws IOException {
+		writeChunk();
+		out.flush();
+	}
+
+	/**
+	 * write the pending elements and the end marker, the underlying output isn't closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		writeChunk();
+		out.write(0);
+		closed = true;
+	}
+
+	private void writeChunk() throws IOException {
+		if (count == 0)
+			return;
+		IoUtils.write(out, count);
+		IoUtils.write(out, chunk.size());
+		chunk.writeTo(out);
+		chunk.reset();
+		count = 0;
+	}
+}
@@ -0,0 +1,116 @@
+package unknow.serialize.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * parallel encoding of independent objects, a batch is written as [count][frames] where a frame is [length][object]
+ * like {@link BinaryFormat#writeMessage(Object, OutputStream)}
+ * 
+ * @author unknow
+ */
+public class Batch {
+	private Batch() {
+	}
+
+	/**
+	 * encode the objects concurrently and write them in order
+	 * 
+	 * @param format the format
+	 * @param list   the objects
+	 * @param out    the output
+	 * @param pool   the pool used to encode
+	 * @throws IOException on IOException
+	 */
+	public static void write(BinaryFormat format, List<?> list, OutputStream out, ForkJoinPool pool) throws IOException {
+		int n = list.size();
+		int parts = Math.min(n, pool.getParallelism() * 4);
+		ByteArrayOutputStream[] buffers = new ByteArrayOutputStream[parts];
+		int[] sizes = new int[n];
+
+		List<ForkJoinTask<Void>> tasks = new ArrayList<>(parts);
+		for (int p = 0; p < parts; p++) {
+			int part = p;
+			tasks.add(pool.submit(() -> {
+				ByteArrayOutputStream buf = new ByteArrayOutputStream();
+				int end = (int) ((part + 1L) * n / parts);
+				for (int i = (int) ((long) part * n / parts); i < end; i++) {
+					int start = buf.size();
+					format.write(list.get(i), buf);
+					sizes[i] = buf.size() - start;
+				}
+				buffers[part] = buf;
+				return null;
+			}));
+		}
+		join(tasks);
+
+		IoUtils.write(out, n);
+		int i = 0;
+		for (int p = 0; p < parts; p++) {
+			byte[] b = buffers[p].toByteArray();
+			int end = (int) ((p + 1L) * n / parts);
+			for (int off = 0; i < end; i++) {
+				IoUtils.write(out, sizes[i]);
+				out.write(b, off, sizes[i]);
+				off += sizes[i];
+			}
+		}
+	}
+
+	/**
+	 * locate the frames of a batch and decode them concurrently
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param pool   the pool used to decode
+	 * @return the objects in written order
+	 * @throws IOException on IOException
+	 */
+	public static List<Object> read(BinaryFormat format, InputStream in, ForkJoinPool pool) throws IOException {
+		int n = IoUtils.readInt(in);
+		if (n < 0)
+			throw new IOException("corrupt stream (invalid frame count)");
+		// grown as the frames are read so a corrupt count fails on end of stream
+		List<byte[]> frames = new ArrayList<>(Math.min(n, 1024));
+		for (int i = 0; i < n; i++)
+			frames.add(IoUtils.readBytes(in, IoUtils.readInt(in)));
+
+		Object[] result = new Object[n];
+		int parts = Math.min(n, pool.getParallelism() * 4);
+		List<ForkJoinTask<Void>> tasks = new ArrayList<>(parts);
+		for (int p = 0; p < parts; p++) {
+			int part = p;
+			tasks.add(pool.submit(() -> {
+				int end = (int) ((part + 1L) * n / parts);
+				for (int i = (int) ((long) part * n / parts); i < end; i++)
+					result[i] = BinaryFormat.decodeMessage(format, frames.get(i));
+				return null;
+			}));
+		}
+		join(tasks);
+		return Arrays.asList(result);
+	}
+
+	private static void join(List<ForkJoinTask<Void>> tasks) throws IOException {
+		try {
+			for (ForkJoinTask<Void> t : tasks)
+				t.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		}
+	}
+}
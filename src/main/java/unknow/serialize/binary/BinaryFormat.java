@@ -1,8 +1,17 @@
 package unknow.serialize.binary;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import unknow.serialize.Codec;
 
 /**
  * Binary serialization for Object. Only registered class can be serialized
@@ -32,4 +41,163 @@ public interface BinaryFormat {
 	 * @throws IOException on IOException
 	 */
 	Object read(InputStream in) throws IOException;
+
+	/**
+	 * skip an object without materializing it
+	 * 
+	 * @param in the input
+	 * @throws IOException on IOException
+	 */
+	void skip(InputStream in) throws IOException;
+
+	/**
+	 * @param cl the class
+	 * @return the id of the registered class or 0 if not registered
+	 */
+	int id(Class<?> cl);
+
+	/**
+	 * @param id the id of a registered class
+	 * @return the codec of this class
+	 * @throws IllegalArgumentException if the id isn't registered
+	 */
+	Codec codec(int id);
+
+	/**
+	 * open a writer for an array of unknown size, elements are written in chunks
+	 * 
+	 * @param out  the output
+	 * @param type the element type
+	 * @return the writer, closing it write the end of the array
+	 */
+	default <T> ArrayWriter<T> openArrayWriter(OutputStream out, Class<T> type) {
+		return new ArrayWriter<>(this, out, type, ArrayWriter.CHUNK);
+	}
+
+	/**
+	 * open a reader for an array written by {@link #openArrayWriter(OutputStream, Class)}
+	 * 
+	 * @param in   the input
+	 * @param type the element type
+	 * @return the reader, closing it skip the remaining elements
+	 */
+	default <T> ArrayReader<T> openArrayReader(InputStream in, Class<T> type) {
+		return new ArrayReader<>(this, in, type);
+	}
+
+	/**
+	 * lazily read a collection or an object array, the elements are decoded when the stream consume them. IOException are
+	 * rethrown as UncheckedIOException
+	 * 
+	 * @param in   the input
+	 * @param type the element type
+	 * @return the elements, once fully consumed the input is positioned after the collection
+	 * @throws IOException on IOException or if the object isn't written with runs
+	 */
+	default <T> Stream<T> readStream(InputStream in, Class<T> type) throws IOException {
+		int id = IoUtils.readInt(in);
+		if (id == 0)
+			return Stream.empty();
+		if (!(Runs.codec(this, id) instanceof Runs.Encoded))
+			throw new IOException("object isn't a collection or an object array");
+		int len = IoUtils.readInt(in);
+		return StreamSupport.stream(new CollectionSpliterator<>(this, in, type, len), false);
+	}
+
+	/**
+	 * write independent objects, they are encoded concurrently in the common ForkJoinPool
+	 * 
+	 * @param list the objects
+	 * @param out  the output
+	 * @throws IOException on IOException
+	 */
+	default void writeBatch(List<?> list, OutputStream out) throws IOException {
+		Batch.write(this, list, out, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * read objects written by {@link #writeBatch(List, OutputStream)}, they are decoded concurrently in the common
+	 * ForkJoinPool
+	 * 
+	 * @param in the input
+	 * @return the objects in written order
+	 * @throws IOException on IOException
+	 */
+	default List<Object> readBatch(InputStream in) throws IOException {
+		return Batch.read(this, in, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * write a framed message [length][object]
+	 * 
+	 * @param o   the object to write
+	 * @param out the output
+	 * @throws IOException on IOException
+	 */
+	default void writeMessage(Object o, OutputStream out) throws IOException {
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		write(o, buf);
+		IoUtils.write(out, buf.size());
+		buf.writeTo(out);
+	}
+
+	/**
+	 * read a message written by {@link #writeMessage(Object, OutputStream)}
+	 * 
+	 * @param in the input
+	 * @return the object
+	 * @throws IOException on IOException, invalid length or if the object doesn't match the frame
+	 */
+	default Object readMessage(InputStream in) throws IOException {
+		return decodeMessage(this, IoUtils.readBytes(in, messageLength(in)));
+	}
+
+	/**
+	 * skip a message without decoding it
+	 * 
+	 * @param in the input
+	 * @return the message length
+	 * @throws IOException on IOException or invalid length
+	 */
+	default int skipMessage(InputStream in) throws IOException {
+		int len = messageLength(in);
+		IoUtils.skip(in, len);
+		return len;
+	}
+
+	/**
+	 * @param in the input
+	 * @return the length of the next message
+	 * @throws IOException on IOException or negative length
+	 */
+	static int messageLength(InputStream in) throws IOException {
+		int len = IoUtils.readInt(in);
+		if (len < 0)
+			throw new IOException("corrupt stream (invalid message length)");
+		return len;
+	}
+
+	/**
+	 * @param in the input
+	 * @return an iterator over the messages until the end of the input
+	 */
+	default Iterator<Object> messages(InputStream in) {
+		return new MessageIterator(this, in);
+	}
+
+	/**
+	 * decode a whole message
+	 * 
+	 * @param format the format
+	 * @param b      the message content
+	 * @return the object
+	 * @throws IOException if the object doesn't match the frame
+	 */
+	static Object decodeMessage(BinaryFormat format, byte[] b) throws IOException {
+		ByteArrayInputStream in = new ByteArrayInputStream(b);
+		Object o = format.read(in);
+		if (in.available() != 0)
+			throw new IOException("corrupt message (length mismatch)");
+		return o;
+	}
 }
@@ -8,9 +8,13 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -46,6 +50,7 @@ public class BinaryFormatBuilder {
 	private static final int MOD = Modifier.STATIC | Modifier.TRANSIENT;
 	private static final String[] IOEXCEPTION = new String[] { "java/io/IOException" };
 	private static final String[] CODEC = new String[] { Type.getInternalName(Codec.class) };
+	private static final String[] RUNS_CODEC = new String[] { Type.getInternalName(Codec.class), Type.getInternalName(Runs.Encoded.class) };
 	private static final String[] BINARYFORMAT = new String[] { Type.getInternalName(BinaryFormat.class) };
 	private static final Comparator<Class<?>> CLASS_CMP = (a, b) -> a.getName().compareTo(b.getName());
 
@@ -60,7 +65,7 @@ public class BinaryFormatBuilder {
 	}
 
 	/** version of the format */
-	private static final byte VERSION = 1;
+	private static final byte VERSION = 3;
 
 	/** Codec classloader */
 	private final Loader loader = new Loader();
@@ -71,12 +76,16 @@ public class BinaryFormatBuilder {
 	private final Map<Class<?>, Integer> sawClass = new HashMap<>();
 	/** all CodecBuilder */
 	private final Map<Class<?>, CodecBuilder> builders = new HashMap<>();
+	/** class with an encoded cache and their max entries */
+	private final Map<Class<?>, Integer> caches = new HashMap<>();
 
 	/** actual id -> Codec class mapping */
 	private final Map<Integer, Class<?>> codecs = new HashMap<>();
 
 	/** id for the next registered classs (0 is reserved for null) */
 	private int nextId = 1;
+	/** suffix for the next projection codec */
+	private int nextProjection = 0;
 
 	/** local cache */
 	private String clazz;
@@ -87,6 +96,8 @@ public class BinaryFormatBuilder {
 	private List<Field> booleanFields = new ArrayList<>();
 	private Set<Class<?>> required = new TreeSet<>(CLASS_CMP);
 	private List<Class<?>> temp = new ArrayList<>();
+	/** fields of the current codec holding the lazily resolved element codecs of the typed fields */
+	private Set<String> elementCodecs = new LinkedHashSet<>();
 
 	public BinaryFormatBuilder() {
 		try {
@@ -109,7 +120,7 @@ public class BinaryFormatBuilder {
 		codecs.put(id, codec);
 		sawClass.put(cl, id);
 		md.update(cl.getName().getBytes(StandardCharsets.UTF_8));
-		md.update(codec.getClass().getName().getBytes(StandardCharsets.UTF_8));
+		md.update(codec.getName().getBytes(StandardCharsets.UTF_8));
 		return this;
 	}
 
@@ -122,6 +133,37 @@ public class BinaryFormatBuilder {
 	 */
 	public BinaryFormatBuilder addBuilder(Class<?> cl, CodecBuilder builder) {
 		builders.put(cl, builder);
+		md.update(cl.getName().getBytes(StandardCharsets.UTF_8));
+		md.update(builder.name().getBytes(StandardCharsets.UTF_8));
+		return this;
+	}
+
+	/**
+	 * use a fixed layout for this class, primitive fields get a constant offset and variable fields are reached through an
+	 * offset table, see {@link #view(Class)} for random access
+	 * 
+	 * @param cl class to add
+	 * @return this
+	 */
+	public BinaryFormatBuilder fixedLayout(Class<?> cl) {
+		return addBuilder(cl, fixedBuilder);
+	}
+
+	/**
+	 * cache the encoding of the instances of this class by identity, the class must be immutable. must be called before
+	 * the class is registered
+	 * 
+	 * @param cl         class to add
+	 * @param maxEntries max number of cached instances
+	 * @return this
+	 * @throws IllegalStateException if the class is already registered
+	 */
+	public BinaryFormatBuilder cache(Class<?> cl, int maxEntries) {
+		if (maxEntries <= 0)
+			throw new IllegalArgumentException("maxEntries <= 0");
+		if (sawClass.containsKey(cl))
+			throw new IllegalStateException(cl + " already registered");
+		caches.put(cl, maxEntries);
 		return this;
 	}
 
@@ -220,6 +262,143 @@ public class BinaryFormatBuilder {
 		return cl.newInstance();
 	}
 
+	/**
+	 * generate a reader that only decode some fields of a registered class, the other fields are skipped
+	 * 
+	 * @param cl    the registered class
+	 * @param names name of the fields to decode
+	 * @return the projection
+	 * @throws ReflectiveOperationException on Codec creation issues
+	 */
+	public <T> Projection<T> projection(Class<T> cl, String... names) throws ReflectiveOperationException {
+		int id = objectId(cl);
+		if (builder(cl) != objectBuilder)
+			throw new IllegalArgumentException("projection not supported for " + cl);
+
+		fields.clear();
+		boolFields.clear();
+		booleanFields.clear();
+		getFields(cl, false);
+		Set<String> only = new HashSet<>();
+		loop: for (String n : names) {
+			for (List<Field> list : Arrays.asList(fields, boolFields, booleanFields)) {
+				for (Field f : list) {
+					if (f.getName().equals(n)) {
+						only.add(n);
+						continue loop;
+					}
+				}
+			}
+			throw new IllegalArgumentException("no field '" + n + "' in " + cl);
+		}
+
+		clazz = Type.getInternalName(cl);
+		clazzDescriptor = Type.getDescriptor(cl);
+		codecName = "unknow/serialize/binary/codecs/$" + Integer.toString(System.identityHashCode(this), 16) + "$" + Integer.toString(System.identityHashCode(cl), 16) + "$" + cl.getSimpleName() + "$" + nextProjection++;
+
+		elementCodecs.clear();
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, codecName, null, Type.getInternalName(Object.class), CODEC);
+
+		// default constructor
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(-1, -1);
+		mv.visitEnd();
+
+		// public void write(BinaryFormat, Object, OutputStream) throws IOException
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "write", "(Lunknow/serialize/binary/BinaryFormat;Ljava/lang/Object;Ljava/io/OutputStream;)V", null, IOEXCEPTION);
+		mv.visitCode();
+		mv.visitTypeInsn(Opcodes.NEW, "java/io/IOException");
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitLdcInsn("projection can't write");
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/io/IOException", "<init>", "(Ljava/lang/String;)V", false);
+		mv.visitInsn(Opcodes.ATHROW);
+		mv.visitMaxs(-1, -1);
+		mv.visitEnd();
+
+		// public Object read(BinaryFormat, InputStream in)
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "read", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;)Ljava/lang/Object;", null, IOEXCEPTION);
+		mv.visitCode();
+		readFields(mv, only);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(-1, -1);
+		mv.visitEnd();
+
+		for (String n : elementCodecs)
+			cw.visitField(Opcodes.ACC_PRIVATE, n, "Lunknow/serialize/Codec;", null, null);
+		cw.visitEnd();
+		Class<Codec> codec = loader.define(codecName.replace('/', '.'), cw.toByteArray());
+		return new Projection<>(cl, id, codec);
+	}
+
+	/**
+	 * create a flyweight view over encoded object of a registered class
+	 * 
+	 * @param cl the registered class
+	 * @return the view
+	 */
+	public View view(Class<?> cl) {
+		int id = objectId(cl);
+
+		fields.clear();
+		boolFields.clear();
+		booleanFields.clear();
+		getFields(cl, false);
+		int len = booleanFields.size() + boolFields.size() + fields.size();
+		String[] names = new String[len];
+		Class<?>[] types = new Class<?>[len];
+		int[] bits = new int[len];
+		int i = 0;
+		int bit = 0;
+		for (Field f : booleanFields) {
+			names[i] = f.getName();
+			types[i] = f.getType();
+			bits[i++] = bit;
+			bit += 2;
+		}
+		for (Field f : boolFields) {
+			names[i] = f.getName();
+			types[i] = f.getType();
+			bits[i++] = bit++;
+		}
+		Generic.TypeArgs[] args = new Generic.TypeArgs[len];
+		for (Field f : fields) {
+			names[i] = f.getName();
+			types[i] = f.getType();
+			args[i] = types[i].isPrimitive() ? null : Generic.typeArgs(f);
+			bits[i++] = -1;
+		}
+		if (builder(cl) != fixedBuilder)
+			return new View(cl, id, names, types, args, bits, (bit + 7) / 8, null);
+
+		Map<Field, Integer> layout = new LinkedHashMap<>();
+		fixedLayout(layout);
+		int[] fixed = new int[len];
+		i = 0;
+		for (List<Field> list : Arrays.asList(booleanFields, boolFields, fields)) {
+			for (Field f : list) {
+				bits[i] = -1;
+				fixed[i++] = layout.get(f);
+			}
+		}
+		return new View(cl, id, names, types, null, bits, 0, fixed);
+	}
+
+	/**
+	 * @param cl the class
+	 * @return the id of a class registered with the object builder
+	 */
+	private int objectId(Class<?> cl) {
+		Integer id = sawClass.get(cl);
+		if (id == null || codecs.get(id).getClassLoader() != loader || builder(cl) != objectBuilder && builder(cl) != fixedBuilder)
+			throw new IllegalArgumentException(cl + " isn't a registered object");
+		return id;
+	}
+
 	private byte[] generateFormat(String name) {
 		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
 		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, name, null, Type.getInternalName(Object.class), BINARYFORMAT);
@@ -337,6 +516,78 @@ public class BinaryFormatBuilder {
 		mv.visitMaxs(-1, -1);
 		mv.visitEnd();
 
+		// public int id(Class)
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "id", "(Ljava/lang/Class;)I", null, null);
+		mv.visitCode();
+		for (Map.Entry<Class<?>, Integer> e : sawClass.entrySet()) {
+			end = new Label();
+			mv.visitVarInsn(Opcodes.ALOAD, 1); // class
+			mv.visitLdcInsn(Type.getType(e.getKey()));
+			mv.visitJumpInsn(Opcodes.IF_ACMPNE, end);
+			loadInt(mv, e.getValue());
+			mv.visitInsn(Opcodes.IRETURN);
+			mv.visitLabel(end);
+		}
+		mv.visitInsn(Opcodes.ICONST_0);
+		mv.visitInsn(Opcodes.IRETURN);
+		mv.visitMaxs(-1, -1);
+		mv.visitEnd();
+
+		// public Codec codec(int)
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "codec", "(I)Lunknow/serialize/Codec;", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ILOAD, 1);
+		err = new Label();
+		for (int i = 0; i < labels.length; i++)
+			labels[i] = new Label();
+		mv.visitTableSwitchInsn(0, labels.length - 1, err, labels);
+		mv.visitLabel(labels[0]);
+		mv.visitJumpInsn(Opcodes.GOTO, err);
+		for (int i = 1; i < labels.length; i++) {
+			mv.visitLabel(labels[i]);
+			mv.visitVarInsn(Opcodes.ALOAD, 0); // this
+			mv.visitFieldInsn(Opcodes.GETFIELD, name, "$" + i, "Lunknow/serialize/Codec;");
+			mv.visitInsn(Opcodes.ARETURN);
+		}
+		mv.visitLabel(err);
+		mv.visitTypeInsn(Opcodes.NEW, "java/lang/IllegalArgumentException");
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitLdcInsn("invalid object id");
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "(Ljava/lang/String;)V", false);
+		mv.visitInsn(Opcodes.ATHROW);
+		mv.visitMaxs(-1, -1);
+		mv.visitEnd();
+
+		// public void skip(InputStream) throws IOException
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "skip", "(Ljava/io/InputStream;)V", null, IOEXCEPTION);
+		mv.visitCode();
+
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
+		err = new Label();
+		for (int i = 0; i < labels.length; i++)
+			labels[i] = new Label();
+		mv.visitTableSwitchInsn(0, labels.length - 1, err, labels);
+		mv.visitLabel(labels[0]);
+		mv.visitInsn(Opcodes.RETURN);
+		for (int i = 1; i < labels.length; i++) {
+			mv.visitLabel(labels[i]);
+			mv.visitVarInsn(Opcodes.ALOAD, 0); // this
+			mv.visitFieldInsn(Opcodes.GETFIELD, name, "$" + i, "Lunknow/serialize/Codec;");
+			mv.visitVarInsn(Opcodes.ALOAD, 0); // this
+			mv.visitVarInsn(Opcodes.ALOAD, 1); // in
+			mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/Codec", "skip", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;)V", true);
+			mv.visitInsn(Opcodes.RETURN);
+		}
+		mv.visitLabel(err);
+		mv.visitTypeInsn(Opcodes.NEW, "java/io/IOException");
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitLdcInsn("corrupt stream (invalid object id)");
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/io/IOException", "<init>", "(Ljava/lang/String;)V", false);
+		mv.visitInsn(Opcodes.ATHROW);
+		mv.visitMaxs(-1, -1);
+		mv.visitEnd();
+
 		cw.visitEnd();
 
 		return cw.toByteArray();
@@ -350,14 +601,28 @@ public class BinaryFormatBuilder {
 	 * @return
 	 */
 	private byte[] generate(Class<?> cl) {
+		CodecBuilder builder = builder(cl);
+		elementCodecs.clear();
 		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
-		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, codecName, null, Type.getInternalName(Object.class), CODEC);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, codecName, null, Type.getInternalName(Object.class), builder == CodecBuilder.ARRAY || builder == CodecBuilder.COLLECTION ? RUNS_CODEC : CODEC);
+
+		Integer cache = caches.get(cl);
+		if (cache != null)
+			cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "cache", "Lunknow/serialize/binary/EncodedCache;", null, null);
 
 		// default constructor
 		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
 		mv.visitCode();
 		mv.visitVarInsn(Opcodes.ALOAD, 0);
 		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		if (cache != null) {
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitTypeInsn(Opcodes.NEW, "unknow/serialize/binary/EncodedCache");
+			mv.visitInsn(Opcodes.DUP);
+			loadInt(mv, cache);
+			mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "unknow/serialize/binary/EncodedCache", "<init>", "(I)V", false);
+			mv.visitFieldInsn(Opcodes.PUTFIELD, codecName, "cache", "Lunknow/serialize/binary/EncodedCache;");
+		}
 		mv.visitInsn(Opcodes.RETURN);
 		mv.visitMaxs(-1, -1);
 		mv.visitEnd();
@@ -375,13 +640,48 @@ public class BinaryFormatBuilder {
 		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/io/IOException", "<init>", "(Ljava/lang/String;)V", false);
 		mv.visitInsn(Opcodes.ATHROW);
 		mv.visitLabel(label0);
-		mv.visitVarInsn(Opcodes.ALOAD, 0);
-		mv.visitVarInsn(Opcodes.ALOAD, 1);
-		mv.visitVarInsn(Opcodes.ALOAD, 2);
-		mv.visitTypeInsn(Opcodes.CHECKCAST, clazz);
-		mv.visitVarInsn(Opcodes.ALOAD, 3);
-		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, codecName, "write", "(Lunknow/serialize/binary/BinaryFormat;" + clazzDescriptor + "Ljava/io/OutputStream;)V", false);
-		mv.visitInsn(Opcodes.RETURN);
+		if (cache != null) {
+			// byte[] b = cache.get(o); if (b == null) { encode it and cache.put(o, b) }; out.write(b)
+			Label hit = new Label();
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitFieldInsn(Opcodes.GETFIELD, codecName, "cache", "Lunknow/serialize/binary/EncodedCache;");
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "unknow/serialize/binary/EncodedCache", "get", "(Ljava/lang/Object;)[B", false);
+			mv.visitVarInsn(Opcodes.ASTORE, 4);
+			mv.visitVarInsn(Opcodes.ALOAD, 4);
+			mv.visitJumpInsn(Opcodes.IFNONNULL, hit);
+			mv.visitTypeInsn(Opcodes.NEW, "java/io/ByteArrayOutputStream");
+			mv.visitInsn(Opcodes.DUP);
+			mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/io/ByteArrayOutputStream", "<init>", "()V", false);
+			mv.visitVarInsn(Opcodes.ASTORE, 5);
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitTypeInsn(Opcodes.CHECKCAST, clazz);
+			mv.visitVarInsn(Opcodes.ALOAD, 5);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, codecName, "write", "(Lunknow/serialize/binary/BinaryFormat;" + clazzDescriptor + "Ljava/io/OutputStream;)V", false);
+			mv.visitVarInsn(Opcodes.ALOAD, 5);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/ByteArrayOutputStream", "toByteArray", "()[B", false);
+			mv.visitVarInsn(Opcodes.ASTORE, 4);
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitFieldInsn(Opcodes.GETFIELD, codecName, "cache", "Lunknow/serialize/binary/EncodedCache;");
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitVarInsn(Opcodes.ALOAD, 4);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "unknow/serialize/binary/EncodedCache", "put", "(Ljava/lang/Object;[B)V", false);
+			mv.visitLabel(hit);
+			mv.visitVarInsn(Opcodes.ALOAD, 3);
+			mv.visitVarInsn(Opcodes.ALOAD, 4);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/OutputStream", "write", "([B)V", false);
+			mv.visitInsn(Opcodes.RETURN);
+		} else {
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitTypeInsn(Opcodes.CHECKCAST, clazz);
+			mv.visitVarInsn(Opcodes.ALOAD, 3);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, codecName, "write", "(Lunknow/serialize/binary/BinaryFormat;" + clazzDescriptor + "Ljava/io/OutputStream;)V", false);
+			mv.visitInsn(Opcodes.RETURN);
+		}
 		mv.visitMaxs(-1, -1);
 		mv.visitEnd();
 
@@ -393,24 +693,18 @@ public class BinaryFormatBuilder {
 		MethodVisitor write = cw.visitMethod(Opcodes.ACC_PUBLIC, "write", "(Lunknow/serialize/binary/BinaryFormat;" + clazzDescriptor + "Ljava/io/OutputStream;)V", null, IOEXCEPTION);
 		write.visitCode();
 
-		CodecBuilder builder = builders.get(cl);
+		builder.generate(required, cl, write, read);
 
-		if (builder == null) {
-			if (cl.isEnum())
-				builder = CodecBuilder.ENUM;
-			else if (INT_COLLECTION != null && INT_COLLECTION.isAssignableFrom(cl))
-				builder = CodecBuilder.INTCOLLECTION;
-			else if (cl.isArray())
-				builder = CodecBuilder.ARRAY;
-			else if (Collection.class.isAssignableFrom(cl))
-				builder = CodecBuilder.COLLECTION;
-			else if (Map.class.isAssignableFrom(cl))
-				builder = CodecBuilder.MAP;
-		}
-		if (builder == null)
-			builder = objectBuilder;
+		// public void skip(BinaryFormat, InputStream in)
+		MethodVisitor skip = cw.visitMethod(Opcodes.ACC_PUBLIC, "skip", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;)V", null, IOEXCEPTION);
+		skip.visitCode();
+		builder.generateSkip(cl, skip);
+		skip.visitInsn(Opcodes.RETURN);
+		skip.visitMaxs(-1, -1);
+		skip.visitEnd();
 
-		builder.generate(required, cl, write, read);
+		if (builder == objectBuilder)
+			generateColumns(cw);
 
 		// end read
 		read.visitInsn(Opcodes.ARETURN);
@@ -422,107 +716,524 @@ public class BinaryFormatBuilder {
 		write.visitMaxs(-1, -1);
 		write.visitEnd();
 
+		for (String n : elementCodecs)
+			cw.visitField(Opcodes.ACC_PRIVATE, n, "Lunknow/serialize/Codec;", null, null);
 		cw.visitEnd();
 
 		return cw.toByteArray();
 	}
 
-	private final CodecBuilder objectBuilder = (required, cl, write, read) -> {
-		fields.clear();
-		boolFields.clear();
-		booleanFields.clear();
-		getFields(cl);
+	/**
+	 * generate writeColumns, readColumns and skipColumns from the collected fields, each field is a column of its
+	 * primitive type, a tri-state byte[] for Boolean or an Object[], see {@link Columnar}
+	 * 
+	 * @param cw the codec class
+	 */
+	private void generateColumns(ClassWriter cw) {
+		List<Field> all = new ArrayList<>(booleanFields);
+		all.addAll(boolFields);
+		all.addAll(fields);
 
-		// bundle boolean fields
-		if (!boolFields.isEmpty() || !booleanFields.isEmpty()) {
-			int i = 0;
-			write.visitInsn(Opcodes.ICONST_0);
-			write.visitVarInsn(Opcodes.ISTORE, 4); // bundling
-			for (Field f : booleanFields) {
-				if (i == 8) {
+		// public void writeColumns(BinaryFormat, Object[], OutputStream) throws IOException
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "writeColumns", "(Lunknow/serialize/binary/BinaryFormat;[Ljava/lang/Object;Ljava/io/OutputStream;)V", null, IOEXCEPTION);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 2); // values
+		mv.visitInsn(Opcodes.ARRAYLENGTH);
+		mv.visitVarInsn(Opcodes.ISTORE, 4); // len
+		for (Field f : all) {
+			Type type = Type.getType(f.getType().isPrimitive() ? f.getType() : Object.class);
+			mv.visitVarInsn(Opcodes.ILOAD, 4); // len
+			if (f.getType().isPrimitive())
+				mv.visitIntInsn(Opcodes.NEWARRAY, newArrayType(f.getType()));
+			else
+				mv.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/Object");
+			mv.visitVarInsn(Opcodes.ASTORE, 6); // column
+
+			Label start = new Label();
+			Label end = new Label();
+			mv.visitInsn(Opcodes.ICONST_0);
+			mv.visitVarInsn(Opcodes.ISTORE, 5); // i
+			mv.visitLabel(start);
+			mv.visitVarInsn(Opcodes.ILOAD, 5); // i
+			mv.visitVarInsn(Opcodes.ILOAD, 4); // len
+			mv.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+			mv.visitVarInsn(Opcodes.ALOAD, 6); // column
+			mv.visitVarInsn(Opcodes.ILOAD, 5); // i
+			mv.visitVarInsn(Opcodes.ALOAD, 2); // values
+			mv.visitVarInsn(Opcodes.ILOAD, 5); // i
+			mv.visitInsn(Opcodes.AALOAD);
+			mv.visitTypeInsn(Opcodes.CHECKCAST, clazz);
+			getValue(mv, f);
+			mv.visitInsn(type.getOpcode(Opcodes.IASTORE));
+			mv.visitIincInsn(5, 1);
+			mv.visitJumpInsn(Opcodes.GOTO, start);
+			mv.visitLabel(end);
+
+			mv.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			mv.visitVarInsn(Opcodes.ALOAD, 6); // column
+			mv.visitVarInsn(Opcodes.ALOAD, 3); // out
+			if (f.getType() == Boolean.class)
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Columnar", "writeBooleans", "(Lunknow/serialize/binary/BinaryFormat;[Ljava/lang/Object;Ljava/io/OutputStream;)V", false);
+			else
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Columnar", "writeColumn", "(Lunknow/serialize/binary/BinaryFormat;Ljava/lang/Object;Ljava/io/OutputStream;)V", false);
+		}
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(-1, -1);
+		mv.visitEnd();
+
+		// public Object[] readColumns(BinaryFormat, InputStream, int) throws IOException
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "readColumns", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;I)[Ljava/lang/Object;", null, IOEXCEPTION);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ILOAD, 3); // n
+		mv.visitTypeInsn(Opcodes.ANEWARRAY, clazz);
+		mv.visitVarInsn(Opcodes.ASTORE, 4); // values
+
+		Label start = new Label();
+		Label end = new Label();
+		mv.visitInsn(Opcodes.ICONST_0);
+		mv.visitVarInsn(Opcodes.ISTORE, 5); // i
+		mv.visitLabel(start);
+		mv.visitVarInsn(Opcodes.ILOAD, 5); // i
+		mv.visitVarInsn(Opcodes.ILOAD, 3); // n
+		mv.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+		mv.visitVarInsn(Opcodes.ALOAD, 4); // values
+		mv.visitVarInsn(Opcodes.ILOAD, 5); // i
+		mv.visitTypeInsn(Opcodes.NEW, clazz);
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, clazz, "<init>", "()V", false);
+		mv.visitInsn(Opcodes.AASTORE);
+		mv.visitIincInsn(5, 1);
+		mv.visitJumpInsn(Opcodes.GOTO, start);
+		mv.visitLabel(end);
+
+		for (Field f : all) {
+			Class<?> t = f.getType();
+			Type type = Type.getType(t.isPrimitive() ? t : Object.class);
+			Type array = Type.getType("[" + type.getDescriptor());
+			mv.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			mv.visitVarInsn(Opcodes.ALOAD, 2); // in
+			if (t == Boolean.class) {
+				mv.visitVarInsn(Opcodes.ILOAD, 3); // n
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Columnar", "readBooleans", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;I)[Ljava/lang/Object;", false);
+			} else {
+				mv.visitLdcInsn(array);
+				mv.visitVarInsn(Opcodes.ILOAD, 3); // n
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Columnar", "readColumn", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;Ljava/lang/Class;I)Ljava/lang/Object;", false);
+				mv.visitTypeInsn(Opcodes.CHECKCAST, array.getInternalName());
+			}
+			mv.visitVarInsn(Opcodes.ASTORE, 6); // column
+
+			start = new Label();
+			end = new Label();
+			mv.visitInsn(Opcodes.ICONST_0);
+			mv.visitVarInsn(Opcodes.ISTORE, 5); // i
+			mv.visitLabel(start);
+			mv.visitVarInsn(Opcodes.ILOAD, 5); // i
+			mv.visitVarInsn(Opcodes.ILOAD, 3); // n
+			mv.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+			mv.visitVarInsn(Opcodes.ALOAD, 4); // values
+			mv.visitVarInsn(Opcodes.ILOAD, 5); // i
+			mv.visitInsn(Opcodes.AALOAD);
+			mv.visitVarInsn(Opcodes.ALOAD, 6); // column
+			mv.visitVarInsn(Opcodes.ILOAD, 5); // i
+			mv.visitInsn(type.getOpcode(Opcodes.IALOAD));
+			if (!t.isPrimitive())
+				mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(t));
+			setValue(mv, f);
+			mv.visitIincInsn(5, 1);
+			mv.visitJumpInsn(Opcodes.GOTO, start);
+			mv.visitLabel(end);
+		}
+		mv.visitVarInsn(Opcodes.ALOAD, 4); // values
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(-1, -1);
+		mv.visitEnd();
+
+		// public void skipColumns(BinaryFormat, InputStream, int) throws IOException
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "skipColumns", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;I)V", null, IOEXCEPTION);
+		mv.visitCode();
+		for (Field f : all) {
+			Class<?> t = f.getType() == Boolean.class ? byte.class : f.getType();
+			Type type = Type.getType(t.isPrimitive() ? t : Object.class);
+			mv.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			mv.visitVarInsn(Opcodes.ALOAD, 2); // in
+			mv.visitLdcInsn(Type.getType("[" + type.getDescriptor()));
+			mv.visitVarInsn(Opcodes.ILOAD, 3); // n
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Columnar", "skipColumn", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;Ljava/lang/Class;I)V", false);
+		}
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(-1, -1);
+		mv.visitEnd();
+	}
+
+	private static int newArrayType(Class<?> type) {
+		if (type == boolean.class)
+			return Opcodes.T_BOOLEAN;
+		if (type == byte.class)
+			return Opcodes.T_BYTE;
+		if (type == char.class)
+			return Opcodes.T_CHAR;
+		if (type == short.class)
+			return Opcodes.T_SHORT;
+		if (type == int.class)
+			return Opcodes.T_INT;
+		if (type == long.class)
+			return Opcodes.T_LONG;
+		if (type == float.class)
+			return Opcodes.T_FLOAT;
+		return Opcodes.T_DOUBLE;
+	}
+
+	/**
+	 * @param cl the class
+	 * @return the CodecBuilder used for this class
+	 */
+	private CodecBuilder builder(Class<?> cl) {
+		CodecBuilder builder = builders.get(cl);
+
+		if (builder == null) {
+			if (cl.isEnum())
+				builder = CodecBuilder.ENUM;
+			else if (INT_COLLECTION != null && INT_COLLECTION.isAssignableFrom(cl))
+				builder = CodecBuilder.INTCOLLECTION;
+			else if (cl.isArray())
+				builder = CodecBuilder.ARRAY;
+			else if (Collection.class.isAssignableFrom(cl))
+				builder = CodecBuilder.COLLECTION;
+			else if (Map.class.isAssignableFrom(cl))
+				builder = CodecBuilder.MAP;
+		}
+		if (builder == null)
+			builder = objectBuilder;
+		return builder;
+	}
+
+	private final CodecBuilder objectBuilder = new CodecBuilder() {
+		@Override
+		public String name() {
+			return "object";
+		}
+
+		@Override
+		public void generate(Collection<Class<?>> required, Class<?> cl, MethodVisitor write, MethodVisitor read) {
+			fields.clear();
+			boolFields.clear();
+			booleanFields.clear();
+			getFields(cl, true);
+
+			// bundle boolean fields
+			if (!boolFields.isEmpty() || !booleanFields.isEmpty()) {
+				int i = 0;
+				write.visitInsn(Opcodes.ICONST_0);
+				write.visitVarInsn(Opcodes.ISTORE, 4); // bundling
+				for (Field f : booleanFields) {
+					if (i == 8) {
+						write.visitVarInsn(Opcodes.ALOAD, 3); // out
+						write.visitVarInsn(Opcodes.ILOAD, 4); // bundling
+						write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/OutputStream", "write", "(I)V", false);
+
+						write.visitInsn(Opcodes.ICONST_0);
+						write.visitVarInsn(Opcodes.ISTORE, 4);
+						i = 0;
+					}
+					write.visitVarInsn(Opcodes.ALOAD, 2); // o
+					getValue(write, f);
+					Label end = new Label();
+					Label save = new Label();
+					write.visitJumpInsn(Opcodes.IFNULL, end);
+
+					loadInt(write, 1 << (i + 1));
+					write.visitVarInsn(Opcodes.ILOAD, 4); // bundling
+					write.visitInsn(Opcodes.IOR);
+
+					write.visitVarInsn(Opcodes.ALOAD, 2); // o
+					getValue(write, f);
+					write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", false);
+					write.visitJumpInsn(Opcodes.IFEQ, save);
+					loadInt(write, 1 << i);
+					write.visitInsn(Opcodes.IOR);
+					write.visitLabel(save);
+					write.visitVarInsn(Opcodes.ISTORE, 4); // bundling
+					write.visitLabel(end);
+					i += 2;
+				}
+				for (Field f : boolFields) {
+					if (i == 8) {
+						write.visitVarInsn(Opcodes.ILOAD, 4); // bundling
+						write.visitVarInsn(Opcodes.ALOAD, 3); // out
+						write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/OutputStream", "write", "(I)V", false);
+
+						write.visitInsn(Opcodes.ICONST_0);
+						write.visitVarInsn(Opcodes.ISTORE, 4);
+						i = 0;
+					}
+					write.visitVarInsn(Opcodes.ALOAD, 2); // o
+					getValue(write, f);
+					Label end = new Label();
+					write.visitJumpInsn(Opcodes.IFEQ, end);
+					loadInt(write, 1 << i);
+					write.visitVarInsn(Opcodes.ILOAD, 4); // bundling
+					write.visitInsn(Opcodes.IOR);
+					write.visitVarInsn(Opcodes.ISTORE, 4); // bundling
+					write.visitLabel(end);
+					i++;
+				}
+
+				if (i > 0) {
 					write.visitVarInsn(Opcodes.ALOAD, 3); // out
 					write.visitVarInsn(Opcodes.ILOAD, 4); // bundling
 					write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/OutputStream", "write", "(I)V", false);
-
-					write.visitInsn(Opcodes.ICONST_0);
-					write.visitVarInsn(Opcodes.ISTORE, 4);
-					i = 0;
 				}
-				write.visitVarInsn(Opcodes.ALOAD, 2); // o
-				getValue(write, f);
-				Label end = new Label();
-				Label save = new Label();
-				write.visitJumpInsn(Opcodes.IFNULL, end);
-
-				loadInt(write, 1 << (i + 1));
-				write.visitVarInsn(Opcodes.ILOAD, 4); // bundling
-				write.visitInsn(Opcodes.IOR);
-
-				write.visitVarInsn(Opcodes.ALOAD, 2); // o
-				getValue(write, f);
-				write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", false);
-				write.visitJumpInsn(Opcodes.IFEQ, save);
-				loadInt(write, 1 << i);
-				write.visitInsn(Opcodes.IOR);
-				write.visitLabel(save);
-				write.visitVarInsn(Opcodes.ISTORE, 4); // bundling
-				write.visitLabel(end);
-				i += 2;
 			}
-			for (Field f : boolFields) {
-				if (i == 8) {
-					write.visitVarInsn(Opcodes.ILOAD, 4); // bundling
+
+			for (Field f : fields) {
+				Class<?> type = f.getType();
+				if (type.isPrimitive()) {
 					write.visitVarInsn(Opcodes.ALOAD, 3); // out
-					write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/OutputStream", "write", "(I)V", false);
+					write.visitVarInsn(Opcodes.ALOAD, 2); // o
+					getValue(write, f);
+					if (type == double.class)
+						write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;D)V", false);
+					else if (type == float.class)
+						write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;F)V", false);
+					else if (type == long.class)
+						write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;J)V", false);
+					else if (type == byte.class)
+						write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/OutputStream", "write", "(I)V", false);
+					else
+						write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
+				} else {
+					Generic.TypeArgs args = Generic.typeArgs(f);
+					write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+					write.visitVarInsn(Opcodes.ALOAD, 2); // o
+					getValue(write, f);
+					if (args == null) {
+						write.visitVarInsn(Opcodes.ALOAD, 3); // out
+						write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "write", "(Ljava/lang/Object;Ljava/io/OutputStream;)V", true);
+						continue;
+					}
+					write.visitLdcInsn(Type.getType(args.impl));
+					write.visitLdcInsn(Type.getType(args.key));
+					if (args.isMap())
+						write.visitLdcInsn(Type.getType(args.value));
+					elementCodecs(write, f, args);
+					write.visitVarInsn(Opcodes.ALOAD, 3); // out
+					if (args.isMap())
+						write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Generic", "writeMap", "(Lunknow/serialize/binary/BinaryFormat;Ljava/util/Map;Ljava/lang/Class;Ljava/lang/Class;Ljava/lang/Class;Lunknow/serialize/Codec;Lunknow/serialize/Codec;Ljava/io/OutputStream;)V", false);
+					else
+						write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Generic", "writeCollection", "(Lunknow/serialize/binary/BinaryFormat;Ljava/util/Collection;Ljava/lang/Class;Ljava/lang/Class;Lunknow/serialize/Codec;Ljava/io/OutputStream;)V", false);
+				}
+			}
+
+			readFields(read, null);
+		}
 
+		@Override
+		public void generateSkip(Class<?> cl, MethodVisitor skip) {
+			// fields are still the one collected by generate
+			int bits = booleanFields.size() * 2 + boolFields.size();
+			if (bits > 0) {
+				skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+				skip.visitLdcInsn((long) (bits + 7) / 8);
+				skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "skip", "(Ljava/io/InputStream;J)V", false);
+			}
+			for (Field f : fields)
+				skipValue(skip, f);
+		}
+	};
+
+	/**
+	 * generator for fixed layout object, a record is [length][fixed part][variable part] all value are little endian and
+	 * aligned from the record start, the fixed part contains the primitive and the offset of the variable fields
+	 */
+	private final CodecBuilder fixedBuilder = new CodecBuilder() {
+		@Override
+		public String name() {
+			return "fixed";
+		}
+
+		@Override
+		public void generate(Collection<Class<?>> required, Class<?> cl, MethodVisitor write, MethodVisitor read) {
+			fields.clear();
+			boolFields.clear();
+			booleanFields.clear();
+			getFields(cl, true);
+			Map<Field, Integer> layout = new LinkedHashMap<>();
+			int size = fixedLayout(layout);
+
+			write.visitTypeInsn(Opcodes.NEW, "java/io/ByteArrayOutputStream");
+			write.visitInsn(Opcodes.DUP);
+			write.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/io/ByteArrayOutputStream", "<init>", "()V", false);
+			write.visitVarInsn(Opcodes.ASTORE, 4); // var
+			loadInt(write, size);
+			write.visitMethodInsn(Opcodes.INVOKESTATIC, "java/nio/ByteBuffer", "allocate", "(I)Ljava/nio/ByteBuffer;", false);
+			write.visitFieldInsn(Opcodes.GETSTATIC, "java/nio/ByteOrder", "LITTLE_ENDIAN", "Ljava/nio/ByteOrder;");
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/nio/ByteBuffer", "order", "(Ljava/nio/ByteOrder;)Ljava/nio/ByteBuffer;", false);
+			write.visitVarInsn(Opcodes.ASTORE, 5); // fixed
+
+			for (Map.Entry<Field, Integer> e : layout.entrySet()) {
+				Field f = e.getKey();
+				Class<?> type = f.getType();
+				write.visitVarInsn(Opcodes.ALOAD, 5); // fixed
+				loadInt(write, e.getValue());
+				if (type.isPrimitive()) {
+					write.visitVarInsn(Opcodes.ALOAD, 2); // o
+					getValue(write, f);
+					String t = type == boolean.class ? "B" : Type.getDescriptor(type);
+					String m = type == boolean.class || type == byte.class ? "put" : "put" + Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+					write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/nio/ByteBuffer", m, "(I" + t + ")Ljava/nio/ByteBuffer;", false);
+				} else if (type == Boolean.class) {
+					Label end = new Label();
+					Label rfalse = new Label();
+					Label rnull = new Label();
+					write.visitVarInsn(Opcodes.ALOAD, 2); // o
+					getValue(write, f);
+					write.visitInsn(Opcodes.DUP);
+					write.visitJumpInsn(Opcodes.IFNULL, rnull);
+					write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", false);
+					write.visitJumpInsn(Opcodes.IFEQ, rfalse);
+					loadInt(write, 0b11);
+					write.visitJumpInsn(Opcodes.GOTO, end);
+					write.visitLabel(rfalse);
+					loadInt(write, 0b10);
+					write.visitJumpInsn(Opcodes.GOTO, end);
+					write.visitLabel(rnull);
+					write.visitInsn(Opcodes.POP);
 					write.visitInsn(Opcodes.ICONST_0);
-					write.visitVarInsn(Opcodes.ISTORE, 4);
-					i = 0;
+					write.visitLabel(end);
+					write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/nio/ByteBuffer", "put", "(IB)Ljava/nio/ByteBuffer;", false);
+				} else {
+					loadInt(write, size);
+					write.visitVarInsn(Opcodes.ALOAD, 4); // var
+					write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/ByteArrayOutputStream", "size", "()I", false);
+					write.visitInsn(Opcodes.IADD);
+					write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/nio/ByteBuffer", "putInt", "(II)Ljava/nio/ByteBuffer;", false);
+					write.visitInsn(Opcodes.POP);
+
+					write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+					write.visitVarInsn(Opcodes.ALOAD, 2); // o
+					getValue(write, f);
+					write.visitVarInsn(Opcodes.ALOAD, 4); // var
+					write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "write", "(Ljava/lang/Object;Ljava/io/OutputStream;)V", true);
+					continue;
 				}
-				write.visitVarInsn(Opcodes.ALOAD, 2); // o
-				getValue(write, f);
-				Label end = new Label();
-				write.visitJumpInsn(Opcodes.IFEQ, end);
-				loadInt(write, 1 << i);
-				write.visitVarInsn(Opcodes.ILOAD, 4); // bundling
-				write.visitInsn(Opcodes.IOR);
-				write.visitVarInsn(Opcodes.ISTORE, 4); // bundling
-				write.visitLabel(end);
-				i++;
+				write.visitInsn(Opcodes.POP);
 			}
-
-			if (i > 0) {
-				write.visitVarInsn(Opcodes.ALOAD, 3); // out
-				write.visitVarInsn(Opcodes.ILOAD, 4); // bundling
-				write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/OutputStream", "write", "(I)V", false);
+			// record length
+			write.visitVarInsn(Opcodes.ALOAD, 5); // fixed
+			write.visitInsn(Opcodes.ICONST_0);
+			loadInt(write, size);
+			write.visitVarInsn(Opcodes.ALOAD, 4); // var
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/ByteArrayOutputStream", "size", "()I", false);
+			write.visitInsn(Opcodes.IADD);
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/nio/ByteBuffer", "putInt", "(II)Ljava/nio/ByteBuffer;", false);
+			write.visitInsn(Opcodes.POP);
+
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitVarInsn(Opcodes.ALOAD, 5); // fixed
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/nio/ByteBuffer", "array", "()[B", false);
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/OutputStream", "write", "([B)V", false);
+			write.visitVarInsn(Opcodes.ALOAD, 4); // var
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/ByteArrayOutputStream", "writeTo", "(Ljava/io/OutputStream;)V", false);
+
+			read.visitTypeInsn(Opcodes.NEW, clazz);
+			read.visitInsn(Opcodes.DUP);
+			read.visitMethodInsn(Opcodes.INVOKESPECIAL, clazz, "<init>", "()V", false);
+			read.visitVarInsn(Opcodes.ASTORE, 3); // object
+
+			loadInt(read, size);
+			read.visitIntInsn(Opcodes.NEWARRAY, Opcodes.T_BYTE);
+			read.visitInsn(Opcodes.DUP);
+			read.visitVarInsn(Opcodes.ALOAD, 2); // in
+			read.visitInsn(Opcodes.SWAP);
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "fill", "(Ljava/io/InputStream;[B)V", false);
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "java/nio/ByteBuffer", "wrap", "([B)Ljava/nio/ByteBuffer;", false);
+			read.visitFieldInsn(Opcodes.GETSTATIC, "java/nio/ByteOrder", "LITTLE_ENDIAN", "Ljava/nio/ByteOrder;");
+			read.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/nio/ByteBuffer", "order", "(Ljava/nio/ByteOrder;)Ljava/nio/ByteBuffer;", false);
+			read.visitVarInsn(Opcodes.ASTORE, 4); // fixed
+
+			// variable part are in field order
+			for (Map.Entry<Field, Integer> e : layout.entrySet()) {
+				Field f = e.getKey();
+				Class<?> type = f.getType();
+				read.visitVarInsn(Opcodes.ALOAD, 3); // object
+				if (type.isPrimitive() || type == Boolean.class) {
+					read.visitVarInsn(Opcodes.ALOAD, 4); // fixed
+					loadInt(read, e.getValue());
+					if (type == boolean.class || type == byte.class || type == Boolean.class)
+						read.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/nio/ByteBuffer", "get", "(I)B", false);
+					else
+						read.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/nio/ByteBuffer", "get" + Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1), "(I)" + Type.getDescriptor(type), false);
+					if (type == Boolean.class)
+						toBoolean(read);
+				} else {
+					read.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+					read.visitVarInsn(Opcodes.ALOAD, 2); // in
+					read.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "read", "(Ljava/io/InputStream;)Ljava/lang/Object;", true);
+					read.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+				}
+				setValue(read, f);
 			}
+			read.visitVarInsn(Opcodes.ALOAD, 3); // object
 		}
 
-		for (Field f : fields) {
-			Class<?> type = f.getType();
-			if (type.isPrimitive()) {
-				write.visitVarInsn(Opcodes.ALOAD, 3); // out
-				write.visitVarInsn(Opcodes.ALOAD, 2); // o
-				getValue(write, f);
-				if (type == double.class)
-					write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;D)V", false);
-				else if (type == float.class)
-					write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;F)V", false);
-				else if (type == long.class)
-					write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;J)V", false);
-				else if (type == byte.class)
-					write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/OutputStream", "write", "(I)V", false);
-				else
-					write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
-			} else {
-				write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
-				write.visitVarInsn(Opcodes.ALOAD, 2); // o
-				getValue(write, f);
-				write.visitVarInsn(Opcodes.ALOAD, 3); // out
-				write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "write", "(Ljava/lang/Object;Ljava/io/OutputStream;)V", true);
+		@Override
+		public void generateSkip(Class<?> cl, MethodVisitor skip) {
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitInsn(Opcodes.DUP);
+			skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readFixedInt", "(Ljava/io/InputStream;)I", false);
+			skip.visitInsn(Opcodes.ICONST_4);
+			skip.visitInsn(Opcodes.ISUB);
+			skip.visitInsn(Opcodes.I2L);
+			skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "skip", "(Ljava/io/InputStream;J)V", false);
+		}
+	};
+
+	/**
+	 * compute the fixed layout of the collected fields, the variable fields stay in field order
+	 * 
+	 * @param layout filled with the offset of each field from the record start
+	 * @return the size of the fixed part
+	 */
+	private int fixedLayout(Map<Field, Integer> layout) {
+		List<Field> all = new ArrayList<>(booleanFields);
+		all.addAll(boolFields);
+		all.addAll(fields);
+		int pos = 4; // record length
+		for (int w : new int[] { 4, 8, 2, 1 }) {
+			for (Field f : all) {
+				if (fixedWidth(f.getType()) != w)
+					continue;
+				pos = (pos + w - 1) / w * w;
+				layout.put(f, pos);
+				pos += w;
 			}
 		}
+		return pos;
+	}
+
+	/**
+	 * @param type the field type
+	 * @return the size of the field in the fixed part
+	 */
+	private static int fixedWidth(Class<?> type) {
+		if (type == long.class || type == double.class)
+			return 8;
+		if (type == short.class || type == char.class)
+			return 2;
+		if (type == boolean.class || type == byte.class || type == Boolean.class)
+			return 1;
+		return 4; // int, float and offset of variable fields
+	}
 
+	/**
+	 * generate the read of the collected fields
+	 * 
+	 * @param read the method (format in 1, input in 2)
+	 * @param only name of the fields to set, other are skipped (null for all)
+	 */
+	private void readFields(MethodVisitor read, Collection<String> only) {
 		read.visitTypeInsn(Opcodes.NEW, clazz);
 		read.visitInsn(Opcodes.DUP);
 		read.visitMethodInsn(Opcodes.INVOKESPECIAL, clazz, "<init>", "()V", false);
@@ -541,33 +1252,17 @@ public class BinaryFormatBuilder {
 					read.visitVarInsn(Opcodes.ISTORE, 4); // bundle
 					i = 0;
 				}
+				if (only != null && !only.contains(f.getName())) {
+					i += 2;
+					continue;
+				}
 				read.visitVarInsn(Opcodes.ALOAD, 3); // object
 				read.visitVarInsn(Opcodes.ILOAD, 4); // bundle
 				loadInt(read, i);
 				read.visitInsn(Opcodes.IUSHR);
 				loadInt(read, 0b11);
 				read.visitInsn(Opcodes.IAND);
-				Label end = new Label();
-				Label error = new Label();
-				Label rnull = new Label();
-				Label rfalse = new Label();
-				Label rtrue = new Label();
-				read.visitTableSwitchInsn(0, 3, error, rnull, error, rfalse, rtrue);
-				read.visitLabel(error);
-				read.visitTypeInsn(Opcodes.NEW, "java/io/IOException");
-				read.visitInsn(Opcodes.DUP);
-				read.visitLdcInsn("corruped stream");
-				read.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/io/IOException", "<init>", "(Ljava/lang/String;)V", false);
-				read.visitInsn(Opcodes.ATHROW);
-				read.visitLabel(rnull);
-				read.visitInsn(Opcodes.ACONST_NULL);
-				read.visitJumpInsn(Opcodes.GOTO, end);
-				read.visitLabel(rfalse);
-				read.visitFieldInsn(Opcodes.GETSTATIC, "java/lang/Boolean", "FALSE", "Ljava/lang/Boolean;");
-				read.visitJumpInsn(Opcodes.GOTO, end);
-				read.visitLabel(rtrue);
-				read.visitFieldInsn(Opcodes.GETSTATIC, "java/lang/Boolean", "TRUE", "Ljava/lang/Boolean;");
-				read.visitLabel(end);
+				toBoolean(read);
 				setValue(read, f);
 				i += 2;
 			}
@@ -578,6 +1273,10 @@ public class BinaryFormatBuilder {
 					read.visitVarInsn(Opcodes.ISTORE, 4); // bundle
 					i = 0;
 				}
+				if (only != null && !only.contains(f.getName())) {
+					i++;
+					continue;
+				}
 				read.visitVarInsn(Opcodes.ALOAD, 3); // object
 
 				read.visitVarInsn(Opcodes.ILOAD, 4); // bundle
@@ -592,6 +1291,10 @@ public class BinaryFormatBuilder {
 
 		for (Field f : fields) {
 			Class<?> type = f.getType();
+			if (only != null && !only.contains(f.getName())) {
+				skipValue(read, f);
+				continue;
+			}
 			read.visitVarInsn(Opcodes.ALOAD, 3); // object
 			if (type.isPrimitive()) {
 				read.visitVarInsn(Opcodes.ALOAD, 2); // in
@@ -606,15 +1309,116 @@ public class BinaryFormatBuilder {
 				else
 					read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
 			} else {
+				Generic.TypeArgs args = Generic.typeArgs(f);
 				read.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
 				read.visitVarInsn(Opcodes.ALOAD, 2); // in
-				read.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "read", "(Ljava/io/InputStream;)Ljava/lang/Object;", true);
+				if (args == null)
+					read.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "read", "(Ljava/io/InputStream;)Ljava/lang/Object;", true);
+				else {
+					read.visitLdcInsn(Type.getType(args.impl));
+					elementCodecs(read, f, args);
+					if (args.isMap())
+						read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Generic", "readMap", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;Ljava/lang/Class;Lunknow/serialize/Codec;Lunknow/serialize/Codec;)Ljava/lang/Object;", false);
+					else
+						read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Generic", "readCollection", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;Ljava/lang/Class;Lunknow/serialize/Codec;)Ljava/lang/Object;", false);
+				}
 				read.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
 			}
 			setValue(read, f);
 		}
 		read.visitVarInsn(Opcodes.ALOAD, 3); // object
-	};
+	}
+
+	/**
+	 * convert the bundled boolean value on the stack to a Boolean (0b00 null, 0b10 false, 0b11 true)
+	 * 
+	 * @param read the method
+	 */
+	private static void toBoolean(MethodVisitor read) {
+		Label end = new Label();
+		Label error = new Label();
+		Label rnull = new Label();
+		Label rfalse = new Label();
+		Label rtrue = new Label();
+		read.visitTableSwitchInsn(0, 3, error, rnull, error, rfalse, rtrue);
+		read.visitLabel(error);
+		read.visitTypeInsn(Opcodes.NEW, "java/io/IOException");
+		read.visitInsn(Opcodes.DUP);
+		read.visitLdcInsn("corruped stream");
+		read.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/io/IOException", "<init>", "(Ljava/lang/String;)V", false);
+		read.visitInsn(Opcodes.ATHROW);
+		read.visitLabel(rnull);
+		read.visitInsn(Opcodes.ACONST_NULL);
+		read.visitJumpInsn(Opcodes.GOTO, end);
+		read.visitLabel(rfalse);
+		read.visitFieldInsn(Opcodes.GETSTATIC, "java/lang/Boolean", "FALSE", "Ljava/lang/Boolean;");
+		read.visitJumpInsn(Opcodes.GOTO, end);
+		read.visitLabel(rtrue);
+		read.visitFieldInsn(Opcodes.GETSTATIC, "java/lang/Boolean", "TRUE", "Ljava/lang/Boolean;");
+		read.visitLabel(end);
+	}
+
+	/**
+	 * skip a field value
+	 * 
+	 * @param skip the method (format in 1, input in 2)
+	 * @param f    the field
+	 */
+	private void skipValue(MethodVisitor skip, Field f) {
+		Class<?> type = f.getType();
+		Generic.TypeArgs args = type.isPrimitive() ? null : Generic.typeArgs(f);
+		if (type == double.class || type == float.class || type == byte.class) {
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitLdcInsn(type == double.class ? 8L : type == float.class ? 4L : 1L);
+			skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "skip", "(Ljava/io/InputStream;J)V", false);
+		} else if (type.isPrimitive()) {
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "skipVarint", "(Ljava/io/InputStream;)V", false);
+		} else if (args == null) {
+			skip.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "skip", "(Ljava/io/InputStream;)V", true);
+		} else {
+			skip.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			elementCodecs(skip, f, args);
+			if (args.isMap())
+				skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Generic", "skipMap", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;Lunknow/serialize/Codec;Lunknow/serialize/Codec;)V", false);
+			else
+				skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Generic", "skipCollection", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;Lunknow/serialize/Codec;)V", false);
+		}
+	}
+
+	/**
+	 * load the element codecs of a typed field, they are resolved on first use and kept in fields of the generated codec
+	 * as a codec instance belongs to a single format
+	 * 
+	 * @param mv   the method (this in 0, format in 1)
+	 * @param f    the field
+	 * @param args its type arguments
+	 */
+	private void elementCodecs(MethodVisitor mv, Field f, Generic.TypeArgs args) {
+		elementCodec(mv, "$" + f.getName() + "$k", args.key);
+		if (args.isMap())
+			elementCodec(mv, "$" + f.getName() + "$v", args.value);
+	}
+
+	private void elementCodec(MethodVisitor mv, String name, Class<?> cl) {
+		elementCodecs.add(name);
+		Label done = new Label();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitFieldInsn(Opcodes.GETFIELD, codecName, name, "Lunknow/serialize/Codec;");
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitJumpInsn(Opcodes.IFNONNULL, done);
+		mv.visitInsn(Opcodes.POP);
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+		mv.visitLdcInsn(Type.getType(cl));
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Generic", "codec", "(Lunknow/serialize/binary/BinaryFormat;Ljava/lang/Class;)Lunknow/serialize/Codec;", false);
+		mv.visitInsn(Opcodes.DUP_X1);
+		mv.visitFieldInsn(Opcodes.PUTFIELD, codecName, name, "Lunknow/serialize/Codec;");
+		mv.visitLabel(done);
+	}
 
 	private void setValue(MethodVisitor methodVisitor, Field f) {
 		if ((f.getModifiers() & Modifier.PUBLIC) == 1) {
@@ -667,8 +1471,9 @@ public class BinaryFormatBuilder {
 	 * get all fields in fields list add class in required
 	 * 
 	 * @param cl
+	 * @param register if true update the hash and the required classes
 	 */
-	private void getFields(Class<?> cl) {
+	private void getFields(Class<?> cl, boolean register) {
 		if (cl == Object.class || cl == null)
 			return;
 		loop: for (Field f : cl.getDeclaredFields()) {
@@ -685,13 +1490,21 @@ public class BinaryFormatBuilder {
 			else if (type == Boolean.class)
 				booleanFields.add(f);
 			else {
-				if (!type.isPrimitive() && type != Object.class)
+				Generic.TypeArgs args = type.isPrimitive() ? null : Generic.typeArgs(f);
+				if (register && !type.isPrimitive() && type != Object.class)
 					required.add(type);
+				if (register && args != null) {
+					required.add(args.key);
+					if (args.isMap())
+						required.add(args.value);
+					md.update(f.getGenericType().getTypeName().getBytes(StandardCharsets.UTF_8));
+				}
 				fields.add(f);
 			}
-			md.update(f.getName().getBytes(StandardCharsets.UTF_8));
+			if (register)
+				md.update(f.getName().getBytes(StandardCharsets.UTF_8));
 		}
-		getFields(cl.getSuperclass());
+		getFields(cl.getSuperclass(), register);
 	}
 
 	/**
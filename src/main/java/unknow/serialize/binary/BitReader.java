@@ -0,0 +1,65 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * read values written by {@link BitWriter}
+ * 
+ * @author unknow
+ */
+public class BitReader {
+	private final InputStream in;
+	private long acc;
+	/** available bits in acc */
+	private int bits;
+
+	/**
+	 * create a new BitReader
+	 * 
+	 * @param in the input
+	 */
+	public BitReader(InputStream in) {
+		this.in = in;
+	}
+
+	/**
+	 * read n bits
+	 * 
+	 * @param n number of bits (0-64)
+	 * @return the value
+	 * @throws IOException on IOException or end of stream reached
+	 */
+	public long read(int n) throws IOException {
+		if (n == 0)
+			return 0;
+		if (n > 56) {
+			long hi = read(n - 32);
+			return hi << 32 | read(32);
+		}
+		while (bits < n) {
+			acc = acc << 8 | IoUtils.read(in);
+			bits += 8;
+		}
+		bits -= n;
+		return (acc >>> bits) & (-1L >>> (64 - n));
+	}
+
+	/**
+	 * read a single bit
+	 * 
+	 * @return the bit
+	 * @throws IOException on IOException or end of stream reached
+	 */
+	public boolean readBit() throws IOException {
+		return read(1) != 0;
+	}
+
+	/**
+	 * drop the padding bits of the current byte
+	 */
+	public void align() {
+		bits = 0;
+		acc = 0;
+	}
+}
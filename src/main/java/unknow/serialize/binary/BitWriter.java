@@ -0,0 +1,67 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * write values bit by bit, most significant bit first
+ * 
+ * @author unknow
+ */
+public class BitWriter {
+	private final OutputStream out;
+	private long acc;
+	/** pending bits in acc */
+	private int bits;
+
+	/**
+	 * create a new BitWriter
+	 * 
+	 * @param out the output
+	 */
+	public BitWriter(OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * write the n lower bits of v
+	 * 
+	 * @param v the value
+	 * @param n number of bits (0-64)
+	 * @throws IOException on IOException
+	 */
+	public void write(long v, int n) throws IOException {
+		while (n > 0) {
+			int k = Math.min(n, 32);
+			acc = acc << k | (v >>> (n - k)) & (-1L >>> (64 - k));
+			bits += k;
+			n -= k;
+			while (bits >= 8) {
+				bits -= 8;
+				out.write((int) (acc >>> bits));
+			}
+		}
+	}
+
+	/**
+	 * write a single bit
+	 * 
+	 * @param b the bit
+	 * @throws IOException on IOException
+	 */
+	public void write(boolean b) throws IOException {
+		write(b ? 1 : 0, 1);
+	}
+
+	/**
+	 * write the pending bits padded with 0 to a full byte
+	 * 
+	 * @throws IOException on IOException
+	 */
+	public void flush() throws IOException {
+		if (bits > 0)
+			out.write((int) (acc << (8 - bits)));
+		acc = 0;
+		bits = 0;
+	}
+}
@@ -0,0 +1,74 @@
+package unknow.serialize.binary;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * InputStream reading from a ByteBuffer, reading advance the buffer position
+ * 
+ * @author unknow
+ */
+public class ByteBufferInputStream extends InputStream {
+	private ByteBuffer buf;
+
+	/**
+	 * create a new ByteBufferInputStream
+	 * 
+	 * @param buf the buffer to read from
+	 */
+	public ByteBufferInputStream(ByteBuffer buf) {
+		this.buf = buf;
+	}
+
+	/**
+	 * @return the underlying buffer
+	 */
+	public ByteBuffer buffer() {
+		return buf;
+	}
+
+	/**
+	 * change the underlying buffer
+	 * 
+	 * @param buf the new buffer
+	 * @return this
+	 */
+	public ByteBufferInputStream buffer(ByteBuffer buf) {
+		this.buf = buf;
+		return this;
+	}
+
+	@Override
+	public int read() {
+		if (!buf.hasRemaining())
+			return -1;
+		return buf.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0)
+			return 0;
+		int r = buf.remaining();
+		if (r == 0)
+			return -1;
+		if (len > r)
+			len = r;
+		buf.get(b, off, len);
+		return len;
+	}
+
+	@Override
+	public long skip(long n) {
+		if (n <= 0)
+			return 0;
+		int s = (int) Math.min(n, buf.remaining());
+		buf.position(buf.position() + s);
+		return s;
+	}
+
+	@Override
+	public int available() {
+		return buf.remaining();
+	}
+}
@@ -0,0 +1,147 @@
+package unknow.serialize.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.zip.Checksum;
+
+/**
+ * read frames written by {@link CheckedFrameWriter}. Frames with a bad checksum, an invalid length or truncated are
+ * dropped and the reader resynchronize on the next magic.
+ * 
+ * @author unknow
+ */
+public class CheckedFrameReader {
+	private final BinaryFormat format;
+	private final InputStream in;
+	private final int maxFrame;
+	private final Checksum crc = Crc32c.create();
+
+	private byte[] buf = new byte[4096];
+	private int start;
+	private int end;
+	private boolean eof;
+
+	private boolean ready;
+	private Object next;
+	private long skipped;
+
+	/**
+	 * create a new CheckedFrameReader
+	 * 
+	 * @param format   the format to use
+	 * @param in       the input
+	 * @param maxFrame max accepted payload length
+	 */
+	public CheckedFrameReader(BinaryFormat format, InputStream in, int maxFrame) {
+		this.format = format;
+		this.in = in;
+		this.maxFrame = maxFrame;
+	}
+
+	/**
+	 * @return true if there is a valid frame left
+	 * @throws IOException on IOException or if a valid frame can't be decoded
+	 */
+	public boolean hasNext() throws IOException {
+		while (!ready) {
+			if (!ensure(2)) {
+				skipped += end - start;
+				start = end;
+				return false;
+			}
+			if ((buf[start] & 0xFF) != CheckedFrameWriter.MAGIC0 || (buf[start + 1] & 0xFF) != CheckedFrameWriter.MAGIC1) {
+				drop();
+				continue;
+			}
+			ensure(7);
+			int i = start + 2;
+			int len = 0;
+			for (int shift = 0;; shift += 7) {
+				if (i == end || shift > 28) {
+					len = -1;
+					break;
+				}
+				int b = buf[i++] & 0xFF;
+				len |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					break;
+			}
+			if (len < 0 || len > maxFrame) {
+				drop();
+				continue;
+			}
+			int p = i - start;
+			if (!ensure(p + len + 4)) {
+				drop();
+				continue;
+			}
+			i = start + p + len;
+			int c = (buf[i] & 0xFF) | (buf[i + 1] & 0xFF) << 8 | (buf[i + 2] & 0xFF) << 16 | (buf[i + 3] & 0xFF) << 24;
+			crc.reset();
+			crc.update(buf, start + 2, p - 2 + len);
+			if ((int) crc.getValue() != c) {
+				drop();
+				continue;
+			}
+			ByteArrayInputStream bin = new ByteArrayInputStream(buf, start + p, len);
+			next = format.read(bin);
+			if (bin.available() != 0)
+				throw new IOException("corrupt message (length mismatch)");
+			start = i + 4;
+			ready = true;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the next valid object
+	 * @throws IOException on IOException or if a valid frame can't be decoded
+	 */
+	public Object next() throws IOException {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		ready = false;
+		Object o = next;
+		next = null;
+		return o;
+	}
+
+	/**
+	 * @return number of bytes dropped while resynchronizing
+	 */
+	public long skipped() {
+		return skipped;
+	}
+
+	private void drop() {
+		start++;
+		skipped++;
+	}
+
+	/**
+	 * @param n number of bytes needed
+	 * @return true if n bytes are buffered after start
+	 */
+	private boolean ensure(int n) throws IOException {
+		if (end - start >= n)
+			return true;
+		if (start + n > buf.length) {
+			System.arraycopy(buf, start, buf, 0, end - start);
+			end -= start;
+			start = 0;
+			if (n > buf.length)
+				buf = Arrays.copyOf(buf, Math.max(buf.length * 2, n));
+		}
+		while (!eof && end - start < n) {
+			int l = in.read(buf, end, buf.length - end);
+			if (l < 0)
+				eof = true;
+			else
+				end += l;
+		}
+		return end - start >= n;
+	}
+}
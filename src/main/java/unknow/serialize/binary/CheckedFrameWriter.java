@@ -0,0 +1,65 @@
+package unknow.serialize.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Checksum;
+
+/**
+ * write checksummed frames [magic][length][payload][crc32c] where the crc (4 bytes little endian) covers the length
+ * and the payload, see {@link CheckedFrameReader}
+ * 
+ * @author unknow
+ */
+public class CheckedFrameWriter {
+	/** first byte of a frame */
+	static final int MAGIC0 = 0xC5;
+	/** second byte of a frame */
+	static final int MAGIC1 = 0x3A;
+
+	private final BinaryFormat format;
+	private final OutputStream out;
+	private final Checksum crc = Crc32c.create();
+	private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream header = new ByteArrayOutputStream(5);
+
+	/**
+	 * create a new CheckedFrameWriter
+	 * 
+	 * @param format the format to use
+	 * @param out    the output
+	 */
+	public CheckedFrameWriter(BinaryFormat format, OutputStream out) {
+		this.format = format;
+		this.out = out;
+	}
+
+	/**
+	 * write a frame
+	 * 
+	 * @param o the object to write
+	 * @throws IOException on IOException
+	 */
+	public void write(Object o) throws IOException {
+		payload.reset();
+		header.reset();
+		format.write(o, payload);
+		IoUtils.write(header, payload.size());
+
+		byte[] h = header.toByteArray();
+		byte[] p = payload.toByteArray();
+		crc.reset();
+		crc.update(h, 0, h.length);
+		crc.update(p, 0, p.length);
+		int c = (int) crc.getValue();
+
+		out.write(MAGIC0);
+		out.write(MAGIC1);
+		out.write(h);
+		out.write(p);
+		out.write(c);
+		out.write(c >>> 8);
+		out.write(c >>> 16);
+		out.write(c >>> 24);
+	}
+}
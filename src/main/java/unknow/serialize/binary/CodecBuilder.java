@@ -16,6 +16,14 @@ import org.objectweb.asm.Type;
  * @author unknow
  */
 public interface CodecBuilder {
+	/**
+	 * @return a stable identifier of this builder, it's part of the format hash when the builder is set with
+	 *         {@link BinaryFormatBuilder#addBuilder(Class, CodecBuilder)}
+	 */
+	default String name() {
+		return getClass().getName();
+	}
+
 	/**
 	 * generate a codec for this class
 	 * 
@@ -26,267 +34,419 @@ public interface CodecBuilder {
 	 */
 	void generate(Collection<Class<?>> required, Class<?> clazz, MethodVisitor write, MethodVisitor read);
 
+	/**
+	 * generate the Codec.skip method, default to call read and discard the result
+	 * 
+	 * @param clazz the class to build codec for
+	 * @param skip  the Codec.skip method
+	 */
+	default void generateSkip(Class<?> clazz, MethodVisitor skip) {
+		skip.visitVarInsn(Opcodes.ALOAD, 0); // this
+		skip.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+		skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+		skip.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/Codec", "read", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;)Ljava/lang/Object;", true);
+		skip.visitInsn(Opcodes.POP);
+	}
+
+	/**
+	 * generator for large object array or collection, elements are grouped in blocks indexed by their size so they can be
+	 * decoded in parallel, see {@link IndexedBlocks}
+	 * 
+	 * @param blockSize number of element per block
+	 * @return the builder
+	 */
+	public static CodecBuilder indexed(int blockSize) {
+		if (blockSize <= 0)
+			throw new IllegalArgumentException("blockSize <= 0");
+		return new DelegatingBuilder("indexed:" + blockSize, "unknow/serialize/binary/IndexedBlocks", blockSize);
+	}
+
+	/**
+	 * generator for object array or collection with repeated values, consecutive equals elements are written once, see
+	 * {@link Rle}
+	 */
+	public static final CodecBuilder RLE = new DelegatingBuilder("rle", "unknow/serialize/binary/Rle", null);
+
+	/**
+	 * generator for object array or collection of elements of the same class, the fields are written as columns, see
+	 * {@link Columnar}
+	 */
+	public static final CodecBuilder COLUMNAR = new DelegatingBuilder("columnar", "unknow/serialize/binary/Columnar", null);
+
+	/**
+	 * generator for object array or collection with few distinct values, each distinct value is written once, see
+	 * {@link Dictionary}
+	 */
+	public static final CodecBuilder DICTIONARY = new DelegatingBuilder("dictionary", "unknow/serialize/binary/Dictionary", null);
+
 	/**
 	 * generator for enum class
 	 */
-	public static final CodecBuilder ENUM = (required, cl, write, read) -> {
-		String clazz = Type.getInternalName(cl);
-
-		write.visitVarInsn(Opcodes.ALOAD, 3); // out
-		write.visitVarInsn(Opcodes.ALOAD, 2); // o
-		write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "ordinal", "()I", false);
-		write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
-
-		read.visitMethodInsn(Opcodes.INVOKESTATIC, clazz, "values", "()[" + Type.getDescriptor(cl), false);
-		read.visitVarInsn(Opcodes.ALOAD, 2); // in
-		read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
-		read.visitInsn(Opcodes.AALOAD);
+	public static final CodecBuilder ENUM = new CodecBuilder() {
+		@Override
+		public String name() {
+			return "enum";
+		}
+
+		@Override
+		public void generate(Collection<Class<?>> required, Class<?> cl, MethodVisitor write, MethodVisitor read) {
+			String clazz = Type.getInternalName(cl);
+
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitVarInsn(Opcodes.ALOAD, 2); // o
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "ordinal", "()I", false);
+			write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
+
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, clazz, "values", "()[" + Type.getDescriptor(cl), false);
+			read.visitVarInsn(Opcodes.ALOAD, 2); // in
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
+			read.visitInsn(Opcodes.AALOAD);
+		}
+
+		@Override
+		public void generateSkip(Class<?> cl, MethodVisitor skip) {
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "skipVarint", "(Ljava/io/InputStream;)V", false);
+		}
 	};
 
 	/**
-	 * generator for object array
+	 * generator for object array, elements are written as runs of the same class, see {@link Runs}
 	 */
-	public static final CodecBuilder ARRAY = (required, cl, write, read) -> {
-		cl = cl.getComponentType();
-		required.add(cl);
-
-		write.visitVarInsn(Opcodes.ALOAD, 3); // out
-		write.visitVarInsn(Opcodes.ALOAD, 2); // o
-		write.visitInsn(Opcodes.ARRAYLENGTH);
-		write.visitInsn(Opcodes.DUP);
-		write.visitVarInsn(Opcodes.ISTORE, 5); // len
-		write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
-		write.visitInsn(Opcodes.ICONST_0);
-		write.visitVarInsn(Opcodes.ISTORE, 4); // i
-		Label end = new Label();
-		Label start = new Label();
-		write.visitLabel(start);
-		write.visitVarInsn(Opcodes.ILOAD, 5); // len
-		write.visitVarInsn(Opcodes.ILOAD, 4); // i
-		write.visitJumpInsn(Opcodes.IF_ICMPEQ, end);
-		// load array[i]
-		write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
-		write.visitVarInsn(Opcodes.ALOAD, 2); // o
-		write.visitVarInsn(Opcodes.ILOAD, 4); // i
-		write.visitInsn(Opcodes.AALOAD);
-		write.visitVarInsn(Opcodes.ALOAD, 3); // out
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "write", "(Ljava/lang/Object;Ljava/io/OutputStream;)V", true);
-
-		write.visitIincInsn(4, 1);
-		write.visitJumpInsn(Opcodes.GOTO, start);
-		write.visitLabel(end);
-
-		read.visitVarInsn(Opcodes.ALOAD, 2); // in
-		read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
-		read.visitInsn(Opcodes.DUP);
-		read.visitVarInsn(Opcodes.ISTORE, 3); // len
-		read.visitTypeInsn(Opcodes.ANEWARRAY, Type.getInternalName(cl));
-		read.visitVarInsn(Opcodes.ASTORE, 4); // array
-		read.visitInsn(Opcodes.ICONST_0);
-		read.visitVarInsn(Opcodes.ISTORE, 5); // i
-		end = new Label();
-		start = new Label();
-		read.visitLabel(start);
-		read.visitVarInsn(Opcodes.ILOAD, 3); // len
-		read.visitVarInsn(Opcodes.ILOAD, 5); // i
-		read.visitJumpInsn(Opcodes.IF_ICMPEQ, end);
-		// load array[i]
-		read.visitVarInsn(Opcodes.ALOAD, 4); // array
-		read.visitVarInsn(Opcodes.ILOAD, 5); // i
-
-		read.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
-		read.visitVarInsn(Opcodes.ALOAD, 2); // in
-		read.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "read", "(Ljava/io/InputStream;)Ljava/lang/Object;", true);
-		read.visitInsn(Opcodes.AASTORE);
-
-		read.visitIincInsn(5, 1); // i++
-		read.visitJumpInsn(Opcodes.GOTO, start);
-		read.visitLabel(end);
-		read.visitVarInsn(Opcodes.ALOAD, 4); // array
+	public static final CodecBuilder ARRAY = new CodecBuilder() {
+		@Override
+		public String name() {
+			return "array";
+		}
+
+		@Override
+		public void generate(Collection<Class<?>> required, Class<?> cl, MethodVisitor write, MethodVisitor read) {
+			required.add(cl.getComponentType());
+
+			write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			write.visitVarInsn(Opcodes.ALOAD, 2); // o
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Runs", "write", "(Lunknow/serialize/binary/BinaryFormat;[Ljava/lang/Object;Ljava/io/OutputStream;)V", false);
+
+			read.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			read.visitVarInsn(Opcodes.ALOAD, 2); // in
+			read.visitLdcInsn(Type.getType(cl.getComponentType()));
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Runs", "read", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;Ljava/lang/Class;)[Ljava/lang/Object;", false);
+		}
+
+		@Override
+		public void generateSkip(Class<?> cl, MethodVisitor skip) {
+			skip.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Runs", "skip", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;)V", false);
+		}
 	};
 	/**
 	 * generator for IntCollection from unknow-data
 	 */
-	public static final CodecBuilder INTCOLLECTION = (required, cl, write, read) -> {
-		String clazz = Type.getInternalName(cl);
-
-		write.visitVarInsn(Opcodes.ALOAD, 3); // out
-		write.visitVarInsn(Opcodes.ALOAD, 2); // o
-		write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "size", "()I", false);
-		write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
-
-		write.visitVarInsn(Opcodes.ALOAD, 2);
-		write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "iterator", "()Lunknow/common/data/IntIterator;", false);
-		write.visitVarInsn(Opcodes.ASTORE, 4); // Iterator
-
-		Label start = new Label();
-		Label end = new Label();
-		write.visitLabel(start);
-		write.visitVarInsn(Opcodes.ALOAD, 4); // iterator
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/common/data/IntIterator", "hasNext", "()Z", true);
-		write.visitJumpInsn(Opcodes.IFEQ, end);
-
-		write.visitVarInsn(Opcodes.ALOAD, 3); // out
-		write.visitVarInsn(Opcodes.ALOAD, 4); // iterator
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/common/data/IntIterator", "nextInt", "()I", true);
-		write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
-
-		write.visitJumpInsn(Opcodes.GOTO, start);
-		write.visitLabel(end);
-
-		read.visitTypeInsn(Opcodes.NEW, clazz);
-		read.visitInsn(Opcodes.DUP);
-		read.visitMethodInsn(Opcodes.INVOKESPECIAL, clazz, "<init>", "()V", false);
-		read.visitVarInsn(Opcodes.ASTORE, 3); // collection
-
-		read.visitVarInsn(Opcodes.ALOAD, 2); // in
-		read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
-		read.visitVarInsn(Opcodes.ISTORE, 4); // len
-
-		end = new Label();
-		start = new Label();
-		read.visitVarInsn(Opcodes.ILOAD, 4); // len
-		read.visitJumpInsn(Opcodes.IFEQ, end);
-		read.visitLabel(start);
-
-		read.visitVarInsn(Opcodes.ALOAD, 3); // collection
-		read.visitVarInsn(Opcodes.ALOAD, 2); // in
-		read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
-		read.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "add", "(I)Z", false);
-		read.visitInsn(Opcodes.POP);
-
-		read.visitIincInsn(4, -1); // len--
-		read.visitVarInsn(Opcodes.ILOAD, 4); // len
-		read.visitJumpInsn(Opcodes.IFNE, start);
-		read.visitLabel(end);
-		read.visitVarInsn(Opcodes.ALOAD, 3); // collection
+	public static final CodecBuilder INTCOLLECTION = new CodecBuilder() {
+		@Override
+		public String name() {
+			return "intcollection";
+		}
+
+		@Override
+		public void generate(Collection<Class<?>> required, Class<?> cl, MethodVisitor write, MethodVisitor read) {
+			String clazz = Type.getInternalName(cl);
+
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitVarInsn(Opcodes.ALOAD, 2); // o
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "size", "()I", false);
+			write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
+
+			write.visitVarInsn(Opcodes.ALOAD, 2);
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "iterator", "()Lunknow/common/data/IntIterator;", false);
+			write.visitVarInsn(Opcodes.ASTORE, 4); // Iterator
+
+			Label start = new Label();
+			Label end = new Label();
+			write.visitLabel(start);
+			write.visitVarInsn(Opcodes.ALOAD, 4); // iterator
+			write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/common/data/IntIterator", "hasNext", "()Z", true);
+			write.visitJumpInsn(Opcodes.IFEQ, end);
+
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitVarInsn(Opcodes.ALOAD, 4); // iterator
+			write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/common/data/IntIterator", "nextInt", "()I", true);
+			write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
+
+			write.visitJumpInsn(Opcodes.GOTO, start);
+			write.visitLabel(end);
+
+			read.visitTypeInsn(Opcodes.NEW, clazz);
+			read.visitInsn(Opcodes.DUP);
+			read.visitMethodInsn(Opcodes.INVOKESPECIAL, clazz, "<init>", "()V", false);
+			read.visitVarInsn(Opcodes.ASTORE, 3); // collection
+
+			read.visitVarInsn(Opcodes.ALOAD, 2); // in
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
+			read.visitVarInsn(Opcodes.ISTORE, 4); // len
+
+			end = new Label();
+			start = new Label();
+			read.visitVarInsn(Opcodes.ILOAD, 4); // len
+			read.visitJumpInsn(Opcodes.IFEQ, end);
+			read.visitLabel(start);
+
+			read.visitVarInsn(Opcodes.ALOAD, 3); // collection
+			read.visitVarInsn(Opcodes.ALOAD, 2); // in
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
+			read.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "add", "(I)Z", false);
+			read.visitInsn(Opcodes.POP);
+
+			read.visitIincInsn(4, -1); // len--
+			read.visitVarInsn(Opcodes.ILOAD, 4); // len
+			read.visitJumpInsn(Opcodes.IFNE, start);
+			read.visitLabel(end);
+			read.visitVarInsn(Opcodes.ALOAD, 3); // collection
+		}
+
+		@Override
+		public void generateSkip(Class<?> cl, MethodVisitor skip) {
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
+			skip.visitVarInsn(Opcodes.ISTORE, 3); // len
+
+			Label end = new Label();
+			Label start = new Label();
+			skip.visitLabel(start);
+			skip.visitVarInsn(Opcodes.ILOAD, 3); // len
+			skip.visitJumpInsn(Opcodes.IFEQ, end);
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "skipVarint", "(Ljava/io/InputStream;)V", false);
+
+			skip.visitIincInsn(3, -1); // len--
+			skip.visitJumpInsn(Opcodes.GOTO, start);
+			skip.visitLabel(end);
+		}
+	};
+	/**
+	 * IntCollection codec writing the zigzag varint of the difference with the previous element, efficient on sorted
+	 * collections
+	 */
+	public static final CodecBuilder INTCOLLECTION_DELTA = new CodecBuilder() {
+		@Override
+		public String name() {
+			return "intcollection_delta";
+		}
+
+		@Override
+		public void generate(Collection<Class<?>> required, Class<?> cl, MethodVisitor write, MethodVisitor read) {
+			String clazz = Type.getInternalName(cl);
+
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitVarInsn(Opcodes.ALOAD, 2); // o
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "size", "()I", false);
+			write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
+
+			write.visitVarInsn(Opcodes.ALOAD, 2);
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "iterator", "()Lunknow/common/data/IntIterator;", false);
+			write.visitVarInsn(Opcodes.ASTORE, 4); // Iterator
+			write.visitInsn(Opcodes.ICONST_0);
+			write.visitVarInsn(Opcodes.ISTORE, 5); // prev
+
+			Label start = new Label();
+			Label end = new Label();
+			write.visitLabel(start);
+			write.visitVarInsn(Opcodes.ALOAD, 4); // iterator
+			write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/common/data/IntIterator", "hasNext", "()Z", true);
+			write.visitJumpInsn(Opcodes.IFEQ, end);
+
+			write.visitVarInsn(Opcodes.ALOAD, 4); // iterator
+			write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/common/data/IntIterator", "nextInt", "()I", true);
+			write.visitVarInsn(Opcodes.ISTORE, 6); // v
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitVarInsn(Opcodes.ILOAD, 6);
+			write.visitVarInsn(Opcodes.ILOAD, 5);
+			write.visitInsn(Opcodes.ISUB);
+			write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "zigzag", "(I)I", false);
+			write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
+			write.visitVarInsn(Opcodes.ILOAD, 6);
+			write.visitVarInsn(Opcodes.ISTORE, 5); // prev = v
+
+			write.visitJumpInsn(Opcodes.GOTO, start);
+			write.visitLabel(end);
+
+			read.visitTypeInsn(Opcodes.NEW, clazz);
+			read.visitInsn(Opcodes.DUP);
+			read.visitMethodInsn(Opcodes.INVOKESPECIAL, clazz, "<init>", "()V", false);
+			read.visitVarInsn(Opcodes.ASTORE, 3); // collection
+
+			read.visitVarInsn(Opcodes.ALOAD, 2); // in
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
+			read.visitVarInsn(Opcodes.ISTORE, 4); // len
+			read.visitInsn(Opcodes.ICONST_0);
+			read.visitVarInsn(Opcodes.ISTORE, 5); // prev
+
+			end = new Label();
+			start = new Label();
+			read.visitVarInsn(Opcodes.ILOAD, 4); // len
+			read.visitJumpInsn(Opcodes.IFEQ, end);
+			read.visitLabel(start);
+
+			read.visitVarInsn(Opcodes.ILOAD, 5);
+			read.visitVarInsn(Opcodes.ALOAD, 2); // in
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "unzigzag", "(I)I", false);
+			read.visitInsn(Opcodes.IADD);
+			read.visitVarInsn(Opcodes.ISTORE, 5); // prev += delta
+			read.visitVarInsn(Opcodes.ALOAD, 3); // collection
+			read.visitVarInsn(Opcodes.ILOAD, 5);
+			read.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "add", "(I)Z", false);
+			read.visitInsn(Opcodes.POP);
+
+			read.visitIincInsn(4, -1); // len--
+			read.visitVarInsn(Opcodes.ILOAD, 4); // len
+			read.visitJumpInsn(Opcodes.IFNE, start);
+			read.visitLabel(end);
+			read.visitVarInsn(Opcodes.ALOAD, 3); // collection
+		}
+
+		@Override
+		public void generateSkip(Class<?> cl, MethodVisitor skip) {
+			INTCOLLECTION.generateSkip(cl, skip);
+		}
 	};
-	public static final CodecBuilder COLLECTION = (required, cl, write, read) -> {
-		String clazz = Type.getInternalName(cl);
-
-		write.visitVarInsn(Opcodes.ALOAD, 3); // out
-		write.visitVarInsn(Opcodes.ALOAD, 2); // o
-		write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "size", "()I", false);
-		write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
-
-		write.visitVarInsn(Opcodes.ALOAD, 2); // o
-		write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "iterator", "()Ljava/util/Iterator;", false);
-		write.visitVarInsn(Opcodes.ASTORE, 4); // Iterator
-
-		Label start = new Label();
-		Label end = new Label();
-		write.visitLabel(start);
-		write.visitVarInsn(Opcodes.ALOAD, 4); // iterator
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z", true);
-		write.visitJumpInsn(Opcodes.IFEQ, end);
-
-		write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
-		write.visitVarInsn(Opcodes.ALOAD, 4); // iterator
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;", true);
-		write.visitVarInsn(Opcodes.ALOAD, 3); // out
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "write", "(Ljava/lang/Object;Ljava/io/OutputStream;)V", true);
-
-		write.visitJumpInsn(Opcodes.GOTO, start);
-		write.visitLabel(end);
-
-		read.visitTypeInsn(Opcodes.NEW, clazz);
-		read.visitInsn(Opcodes.DUP);
-		read.visitMethodInsn(Opcodes.INVOKESPECIAL, clazz, "<init>", "()V", false);
-		read.visitVarInsn(Opcodes.ASTORE, 3); // collection
-
-		read.visitVarInsn(Opcodes.ALOAD, 2); // in
-		read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
-		read.visitVarInsn(Opcodes.ISTORE, 4); // len
-
-		read.visitInsn(Opcodes.ICONST_0);
-		read.visitVarInsn(Opcodes.ISTORE, 5); // i
-		end = new Label();
-		start = new Label();
-		read.visitLabel(start);
-		read.visitVarInsn(Opcodes.ILOAD, 4); // len
-		read.visitVarInsn(Opcodes.ILOAD, 5); // i
-		read.visitJumpInsn(Opcodes.IF_ICMPEQ, end);
-
-		read.visitVarInsn(Opcodes.ALOAD, 3); // collection
-		read.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
-		read.visitVarInsn(Opcodes.ALOAD, 2); // in
-		read.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "read", "(Ljava/io/InputStream;)Ljava/lang/Object;", true);
-		read.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "add", "(Ljava/lang/Object;)Z", false);
-		read.visitInsn(Opcodes.POP);
-
-		read.visitIincInsn(5, 1); // i++
-		read.visitJumpInsn(Opcodes.GOTO, start);
-		read.visitLabel(end);
-		read.visitVarInsn(Opcodes.ALOAD, 3); // collection
+	/**
+	 * generator for collection, elements are written as runs of the same class, see {@link Runs}
+	 */
+	public static final CodecBuilder COLLECTION = new CodecBuilder() {
+		@Override
+		public String name() {
+			return "collection";
+		}
+
+		@Override
+		public void generate(Collection<Class<?>> required, Class<?> cl, MethodVisitor write, MethodVisitor read) {
+			String clazz = Type.getInternalName(cl);
+
+			write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			write.visitVarInsn(Opcodes.ALOAD, 2); // o
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Runs", "write", "(Lunknow/serialize/binary/BinaryFormat;Ljava/util/Collection;Ljava/io/OutputStream;)V", false);
+
+			read.visitTypeInsn(Opcodes.NEW, clazz);
+			read.visitInsn(Opcodes.DUP);
+			read.visitMethodInsn(Opcodes.INVOKESPECIAL, clazz, "<init>", "()V", false);
+			read.visitVarInsn(Opcodes.ASTORE, 3); // collection
+			read.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			read.visitVarInsn(Opcodes.ALOAD, 2); // in
+			read.visitVarInsn(Opcodes.ALOAD, 3); // collection
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Runs", "read", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;Ljava/util/Collection;)V", false);
+			read.visitVarInsn(Opcodes.ALOAD, 3); // collection
+		}
+
+		@Override
+		public void generateSkip(Class<?> cl, MethodVisitor skip) {
+			skip.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/Runs", "skip", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;)V", false);
+		}
 	};
-	public static final CodecBuilder MAP = (required, cl, write, read) -> {
-		String clazz = Type.getInternalName(cl);
-
-		write.visitVarInsn(Opcodes.ALOAD, 3); // out
-		write.visitVarInsn(Opcodes.ALOAD, 2); // o
-		write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "size", "()I", false);
-		write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
-
-		write.visitVarInsn(Opcodes.ALOAD, 2); // o
-		write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "entrySet", "()Ljava/util/Set;", false);
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Set", "iterator", "()Ljava/util/Iterator;", true);
-		write.visitVarInsn(Opcodes.ASTORE, 4); // Iterator
-
-		Label start = new Label();
-		Label end = new Label();
-		write.visitLabel(start);
-		write.visitVarInsn(Opcodes.ALOAD, 4); // iterator
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z", true);
-		write.visitJumpInsn(Opcodes.IFEQ, end);
-
-		write.visitVarInsn(Opcodes.ALOAD, 4);
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;", true);
-		write.visitTypeInsn(Opcodes.CHECKCAST, "java/util/Map$Entry");
-		write.visitVarInsn(Opcodes.ASTORE, 5); // entry
-
-		write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
-		write.visitVarInsn(Opcodes.ALOAD, 5); // entry
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Map$Entry", "getKey", "()Ljava/lang/Object;", true);
-		write.visitVarInsn(Opcodes.ALOAD, 3); // out
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "write", "(Ljava/lang/Object;Ljava/io/OutputStream;)V", true);
-
-		write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
-		write.visitVarInsn(Opcodes.ALOAD, 5); // entry
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Map$Entry", "getValue", "()Ljava/lang/Object;", true);
-		write.visitVarInsn(Opcodes.ALOAD, 3); // out
-		write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "write", "(Ljava/lang/Object;Ljava/io/OutputStream;)V", true);
-
-		write.visitJumpInsn(Opcodes.GOTO, start);
-		write.visitLabel(end);
-
-		read.visitTypeInsn(Opcodes.NEW, clazz);
-		read.visitInsn(Opcodes.DUP);
-		read.visitMethodInsn(Opcodes.INVOKESPECIAL, clazz, "<init>", "()V", false);
-		read.visitVarInsn(Opcodes.ASTORE, 3); // map
-
-		read.visitVarInsn(Opcodes.ALOAD, 2); // in
-		read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
-		read.visitVarInsn(Opcodes.ISTORE, 4); // len
-
-		end = new Label();
-		start = new Label();
-		read.visitLabel(start);
-		read.visitVarInsn(Opcodes.ILOAD, 4); // len
-		read.visitJumpInsn(Opcodes.IFEQ, end);
-
-		read.visitVarInsn(Opcodes.ALOAD, 3); // map
-		read.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
-		read.visitVarInsn(Opcodes.ALOAD, 2); // in
-		read.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "read", "(Ljava/io/InputStream;)Ljava/lang/Object;", true);
-		read.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
-		read.visitVarInsn(Opcodes.ALOAD, 2); // in
-		read.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "read", "(Ljava/io/InputStream;)Ljava/lang/Object;", true);
-		read.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", false);
-		read.visitInsn(Opcodes.POP);
-
-		read.visitIincInsn(4, -1); // len--
-		read.visitJumpInsn(Opcodes.GOTO, start);
-		read.visitLabel(end);
-		read.visitVarInsn(Opcodes.ALOAD, 3); // map
+	public static final CodecBuilder MAP = new CodecBuilder() {
+		@Override
+		public String name() {
+			return "map";
+		}
+
+		@Override
+		public void generate(Collection<Class<?>> required, Class<?> cl, MethodVisitor write, MethodVisitor read) {
+			String clazz = Type.getInternalName(cl);
+
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitVarInsn(Opcodes.ALOAD, 2); // o
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "size", "()I", false);
+			write.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "write", "(Ljava/io/OutputStream;I)V", false);
+
+			write.visitVarInsn(Opcodes.ALOAD, 2); // o
+			write.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "entrySet", "()Ljava/util/Set;", false);
+			write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Set", "iterator", "()Ljava/util/Iterator;", true);
+			write.visitVarInsn(Opcodes.ASTORE, 4); // Iterator
+
+			Label start = new Label();
+			Label end = new Label();
+			write.visitLabel(start);
+			write.visitVarInsn(Opcodes.ALOAD, 4); // iterator
+			write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z", true);
+			write.visitJumpInsn(Opcodes.IFEQ, end);
+
+			write.visitVarInsn(Opcodes.ALOAD, 4);
+			write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;", true);
+			write.visitTypeInsn(Opcodes.CHECKCAST, "java/util/Map$Entry");
+			write.visitVarInsn(Opcodes.ASTORE, 5); // entry
+
+			write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			write.visitVarInsn(Opcodes.ALOAD, 5); // entry
+			write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Map$Entry", "getKey", "()Ljava/lang/Object;", true);
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "write", "(Ljava/lang/Object;Ljava/io/OutputStream;)V", true);
+
+			write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			write.visitVarInsn(Opcodes.ALOAD, 5); // entry
+			write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Map$Entry", "getValue", "()Ljava/lang/Object;", true);
+			write.visitVarInsn(Opcodes.ALOAD, 3); // out
+			write.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "write", "(Ljava/lang/Object;Ljava/io/OutputStream;)V", true);
+
+			write.visitJumpInsn(Opcodes.GOTO, start);
+			write.visitLabel(end);
+
+			read.visitTypeInsn(Opcodes.NEW, clazz);
+			read.visitInsn(Opcodes.DUP);
+			read.visitMethodInsn(Opcodes.INVOKESPECIAL, clazz, "<init>", "()V", false);
+			read.visitVarInsn(Opcodes.ASTORE, 3); // map
+
+			read.visitVarInsn(Opcodes.ALOAD, 2); // in
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
+			read.visitVarInsn(Opcodes.ISTORE, 4); // len
+
+			end = new Label();
+			start = new Label();
+			read.visitLabel(start);
+			read.visitVarInsn(Opcodes.ILOAD, 4); // len
+			read.visitJumpInsn(Opcodes.IFEQ, end);
+
+			read.visitVarInsn(Opcodes.ALOAD, 3); // map
+			read.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			read.visitVarInsn(Opcodes.ALOAD, 2); // in
+			read.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "read", "(Ljava/io/InputStream;)Ljava/lang/Object;", true);
+			read.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			read.visitVarInsn(Opcodes.ALOAD, 2); // in
+			read.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "read", "(Ljava/io/InputStream;)Ljava/lang/Object;", true);
+			read.visitMethodInsn(Opcodes.INVOKEVIRTUAL, clazz, "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", false);
+			read.visitInsn(Opcodes.POP);
+
+			read.visitIincInsn(4, -1); // len--
+			read.visitJumpInsn(Opcodes.GOTO, start);
+			read.visitLabel(end);
+			read.visitVarInsn(Opcodes.ALOAD, 3); // map
+		}
+
+		@Override
+		public void generateSkip(Class<?> cl, MethodVisitor skip) {
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitMethodInsn(Opcodes.INVOKESTATIC, "unknow/serialize/binary/IoUtils", "readInt", "(Ljava/io/InputStream;)I", false);
+			skip.visitVarInsn(Opcodes.ISTORE, 3); // len
+
+			Label end = new Label();
+			Label start = new Label();
+			skip.visitLabel(start);
+			skip.visitVarInsn(Opcodes.ILOAD, 3); // len
+			skip.visitJumpInsn(Opcodes.IFEQ, end);
+			skip.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "skip", "(Ljava/io/InputStream;)V", true);
+			skip.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+			skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+			skip.visitMethodInsn(Opcodes.INVOKEINTERFACE, "unknow/serialize/binary/BinaryFormat", "skip", "(Ljava/io/InputStream;)V", true);
+
+			skip.visitIincInsn(3, -1); // len--
+			skip.visitJumpInsn(Opcodes.GOTO, start);
+			skip.visitLabel(end);
+		}
 	};
 }
@@ -0,0 +1,72 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import unknow.serialize.Codec;
+
+/**
+ * Spliterator decoding the elements of a collection on demand, see {@link Runs}
+ * 
+ * @author unknow
+ * @param <T> the element type
+ */
+public class CollectionSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+	private final BinaryFormat format;
+	private final InputStream in;
+	private final Class<T> type;
+	private int remaining;
+	/** element left in the current run */
+	private int run;
+	/** codec of the current run or null for a run of null */
+	private Codec codec;
+
+	/**
+	 * create a new CollectionSpliterator
+	 * 
+	 * @param format the format
+	 * @param in     the input positioned on the first run
+	 * @param type   the element type
+	 * @param len    the number of element
+	 */
+	public CollectionSpliterator(BinaryFormat format, InputStream in, Class<T> type, int len) {
+		super(len, Spliterator.ORDERED | Spliterator.SIZED);
+		this.format = format;
+		this.in = in;
+		this.type = type;
+		this.remaining = len;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (remaining == 0)
+			return false;
+		Object o = null;
+		try {
+			if (run == 0) {
+				run = Runs.count(in, remaining);
+				int id = IoUtils.readInt(in);
+				codec = id == 0 ? null : Runs.codec(format, id);
+			}
+			if (codec != null)
+				o = codec.read(format, in);
+			run--;
+			if (o != null && !type.isInstance(o))
+				throw new IOException("object not a " + type.getName());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		remaining--;
+		action.accept(type.cast(o));
+		return true;
+	}
+
+	@Override
+	public long estimateSize() {
+		return remaining;
+	}
+}
@@ -0,0 +1,243 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import unknow.serialize.Codec;
+import unknow.serialize.binary.codecs.BooleanCodec;
+import unknow.serialize.binary.codecs.ByteCodec;
+import unknow.serialize.binary.codecs.CharacterCodec;
+import unknow.serialize.binary.codecs.DoubleCodec;
+import unknow.serialize.binary.codecs.FloatCodec;
+import unknow.serialize.binary.codecs.IntegerCodec;
+import unknow.serialize.binary.codecs.LongCodec;
+import unknow.serialize.binary.codecs.ShortCodec;
+
+/**
+ * columnar encoding of homogeneous collections written as [len][element id][columns], an element id of 0 means the
+ * elements are written one by one. Each field is a column written with the codec registered for its primitive array
+ * type (so delta, bit packing... apply) or with {@link Dictionary#writeColumn(BinaryFormat, Object[], OutputStream)}
+ * for reference fields, see {@link CodecBuilder#COLUMNAR}
+ * 
+ * @author unknow
+ */
+public class Columnar {
+	private static final Map<Class<?>, Codec> DEFAULTS = new HashMap<>();
+	static {
+		DEFAULTS.put(boolean[].class, new BooleanCodec.Array());
+		DEFAULTS.put(byte[].class, new ByteCodec.Array());
+		DEFAULTS.put(char[].class, new CharacterCodec.Array());
+		DEFAULTS.put(short[].class, new ShortCodec.Array());
+		DEFAULTS.put(int[].class, new IntegerCodec.Array());
+		DEFAULTS.put(long[].class, new LongCodec.Array());
+		DEFAULTS.put(float[].class, new FloatCodec.Array());
+		DEFAULTS.put(double[].class, new DoubleCodec.Array());
+	}
+
+	private Columnar() {
+	}
+
+	/**
+	 * write an object array
+	 * 
+	 * @param format the format
+	 * @param a      the array
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void write(BinaryFormat format, Object[] a, OutputStream out) throws IOException {
+		IoUtils.write(out, a.length);
+		if (a.length == 0)
+			return;
+		Class<?> type = a[0] == null ? null : a[0].getClass();
+		for (int i = 1; type != null && i < a.length; i++) {
+			if (a[i] == null || a[i].getClass() != type)
+				type = null;
+		}
+		int id = type == null ? 0 : format.id(type);
+		IoUtils.write(out, id);
+		if (id == 0) {
+			for (int i = 0; i < a.length; i++)
+				format.write(a[i], out);
+		} else
+			format.codec(id).writeColumns(format, a, out);
+	}
+
+	/**
+	 * write a collection
+	 * 
+	 * @param format the format
+	 * @param c      the collection
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void write(BinaryFormat format, Collection<?> c, OutputStream out) throws IOException {
+		Class<?> type = null;
+		boolean first = true;
+		for (Object o : c) {
+			if (o == null || !first && o.getClass() != type) {
+				type = null;
+				break;
+			}
+			type = o.getClass();
+			first = false;
+		}
+		int id = type == null ? 0 : format.id(type);
+		if (id != 0) {
+			// Codec.writeColumns takes the rows as an array
+			write(format, c.toArray(), out);
+			return;
+		}
+		IoUtils.write(out, c.size());
+		if (c.isEmpty())
+			return;
+		IoUtils.write(out, 0);
+		for (Object o : c)
+			format.write(o, out);
+	}
+
+	/**
+	 * read the elements
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param type   the element type
+	 * @return the elements
+	 * @throws IOException on IOException
+	 */
+	public static Object[] read(BinaryFormat format, InputStream in, Class<?> type) throws IOException {
+		int len = IoUtils.readInt(in);
+		Object[] a = (Object[]) Array.newInstance(type, len);
+		if (len == 0)
+			return a;
+		int id = IoUtils.readInt(in);
+		if (id == 0) {
+			for (int i = 0; i < len; i++)
+				a[i] = format.read(in);
+		} else {
+			Object[] v = Runs.codec(format, id).readColumns(format, in, len);
+			if (v.length != len)
+				throw new IOException("corrupt stream (invalid column length)");
+			try {
+				System.arraycopy(v, 0, a, 0, len);
+			} catch (ArrayStoreException e) {
+				throw new IOException("object not a " + type.getName(), e);
+			}
+		}
+		return a;
+	}
+
+	/**
+	 * skip the elements
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @throws IOException on IOException
+	 */
+	public static void skip(BinaryFormat format, InputStream in) throws IOException {
+		int len = IoUtils.readInt(in);
+		if (len == 0)
+			return;
+		int id = IoUtils.readInt(in);
+		if (id == 0) {
+			for (int i = 0; i < len; i++)
+				format.skip(in);
+		} else
+			Runs.codec(format, id).skipColumns(format, in, len);
+	}
+
+	/**
+	 * write a column, Object[] column of immutable values are dictionary encoded when they have few distinct values
+	 * 
+	 * @param format the format
+	 * @param column the column (primitive array or Object[])
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void writeColumn(BinaryFormat format, Object column, OutputStream out) throws IOException {
+		if (column instanceof Object[])
+			Dictionary.writeColumn(format, (Object[]) column, out);
+		else
+			codec(format, column.getClass()).write(format, column, out);
+	}
+
+	/**
+	 * read a column
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param type   the column type
+	 * @param n      the number of values
+	 * @return the column
+	 * @throws IOException on IOException
+	 */
+	public static Object readColumn(BinaryFormat format, InputStream in, Class<?> type, int n) throws IOException {
+		if (type == Object[].class)
+			return Dictionary.readColumn(format, in, n);
+		Object o = codec(format, type).read(format, in);
+		if (!type.isInstance(o) || Array.getLength(o) != n)
+			throw new IOException("corrupt stream (invalid column)");
+		return o;
+	}
+
+	/**
+	 * skip a column
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param type   the column type
+	 * @param n      the number of values
+	 * @throws IOException on IOException
+	 */
+	public static void skipColumn(BinaryFormat format, InputStream in, Class<?> type, int n) throws IOException {
+		if (type == Object[].class)
+			Dictionary.skipColumn(format, in, n);
+		else
+			codec(format, type).skip(format, in);
+	}
+
+	/**
+	 * write a Boolean column as a byte[] column of 0 (null), 1 (false) or 2 (true), Boolean isn't a registered class
+	 * 
+	 * @param format the format
+	 * @param column the column
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void writeBooleans(BinaryFormat format, Object[] column, OutputStream out) throws IOException {
+		byte[] b = new byte[column.length];
+		for (int i = 0; i < b.length; i++)
+			b[i] = (byte) (column[i] == null ? 0 : (Boolean) column[i] ? 2 : 1);
+		writeColumn(format, b, out);
+	}
+
+	/**
+	 * read a column written by {@link #writeBooleans(BinaryFormat, Object[], OutputStream)}
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param n      the number of values
+	 * @return the column
+	 * @throws IOException on IOException
+	 */
+	public static Object[] readBooleans(BinaryFormat format, InputStream in, int n) throws IOException {
+		byte[] b = (byte[]) readColumn(format, in, byte[].class, n);
+		Object[] a = new Object[n];
+		for (int i = 0; i < n; i++) {
+			if (b[i] < 0 || b[i] > 2)
+				throw new IOException("corrupt stream (invalid Boolean)");
+			a[i] = b[i] == 0 ? null : Boolean.valueOf(b[i] == 2);
+		}
+		return a;
+	}
+
+	private static Codec codec(BinaryFormat format, Class<?> type) {
+		int id = format.id(type);
+		return id == 0 ? DEFAULTS.get(type) : format.codec(id);
+	}
+}
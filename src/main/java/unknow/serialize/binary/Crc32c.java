@@ -0,0 +1,68 @@
+package unknow.serialize.binary;
+
+import java.lang.reflect.Constructor;
+import java.util.zip.Checksum;
+
+/**
+ * CRC-32C (Castagnoli) checksum, on java 9+ {@link #create()} returns the intrinsified java.util.zip.CRC32C
+ * 
+ * @author unknow
+ */
+public final class Crc32c implements Checksum {
+	private static final int[] TABLE = new int[256];
+	private static final Constructor<?> JDK;
+
+	static {
+		for (int i = 0; i < 256; i++) {
+			int c = i;
+			for (int j = 0; j < 8; j++)
+				c = (c & 1) != 0 ? (c >>> 1) ^ 0x82F63B78 : c >>> 1;
+			TABLE[i] = c;
+		}
+		Constructor<?> c;
+		try {
+			c = Class.forName("java.util.zip.CRC32C").getConstructor();
+		} catch (ReflectiveOperationException e) {
+			c = null;
+		}
+		JDK = c;
+	}
+
+	/**
+	 * @return a new CRC-32C checksum
+	 */
+	public static Checksum create() {
+		if (JDK != null) {
+			try {
+				return (Checksum) JDK.newInstance();
+			} catch (ReflectiveOperationException e) { // fallback
+			}
+		}
+		return new Crc32c();
+	}
+
+	private int crc = 0xFFFFFFFF;
+
+	@Override
+	public void update(int b) {
+		crc = (crc >>> 8) ^ TABLE[(crc ^ b) & 0xFF];
+	}
+
+	@Override
+	public void update(byte[] b, int off, int len) {
+		int c = crc;
+		for (int e = off + len; off < e; off++)
+			c = (c >>> 8) ^ TABLE[(c ^ b[off]) & 0xFF];
+		crc = c;
+	}
+
+	@Override
+	public long getValue() {
+		return ~crc & 0xFFFFFFFFL;
+	}
+
+	@Override
+	public void reset() {
+		crc = 0xFFFFFFFF;
+	}
+}
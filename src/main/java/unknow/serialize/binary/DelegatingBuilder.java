@@ -0,0 +1,80 @@
+package unknow.serialize.binary;
+
+import java.util.Collection;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * generator for object array or collection calling the static write/read/skip methods of a helper class like
+ * {@link Rle}:
+ * <ul>
+ * <li>write(BinaryFormat, Object[] | Collection, [int,] OutputStream)</li>
+ * <li>Object[] read(BinaryFormat, InputStream, Class)</li>
+ * <li>skip(BinaryFormat, InputStream)</li>
+ * </ul>
+ * collections are read by adding the elements to a new instance without an intermediate list
+ * 
+ * @author unknow
+ */
+final class DelegatingBuilder implements CodecBuilder {
+	private final String name;
+	private final String owner;
+	private final Integer arg;
+
+	/**
+	 * create a new DelegatingBuilder
+	 * 
+	 * @param name  the builder name
+	 * @param owner the helper internal name
+	 * @param arg   int argument passed to write before the output or null
+	 */
+	DelegatingBuilder(String name, String owner, Integer arg) {
+		this.name = name;
+		this.owner = owner;
+		this.arg = arg;
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public void generate(Collection<Class<?>> required, Class<?> cl, MethodVisitor write, MethodVisitor read) {
+		boolean array = cl.isArray();
+		String clazz = Type.getInternalName(cl);
+		if (array)
+			required.add(cl.getComponentType());
+
+		write.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+		write.visitVarInsn(Opcodes.ALOAD, 2); // o
+		if (arg != null)
+			write.visitLdcInsn(arg);
+		write.visitVarInsn(Opcodes.ALOAD, 3); // out
+		write.visitMethodInsn(Opcodes.INVOKESTATIC, owner, "write", "(Lunknow/serialize/binary/BinaryFormat;" + (array ? "[Ljava/lang/Object;" : "Ljava/util/Collection;") + (arg == null ? "" : "I") + "Ljava/io/OutputStream;)V", false);
+
+		if (!array) {
+			read.visitTypeInsn(Opcodes.NEW, clazz);
+			read.visitInsn(Opcodes.DUP);
+			read.visitMethodInsn(Opcodes.INVOKESPECIAL, clazz, "<init>", "()V", false);
+			read.visitInsn(Opcodes.DUP);
+		}
+		read.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+		read.visitVarInsn(Opcodes.ALOAD, 2); // in
+		read.visitLdcInsn(Type.getType(array ? cl.getComponentType() : Object.class));
+		read.visitMethodInsn(Opcodes.INVOKESTATIC, owner, "read", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;Ljava/lang/Class;)[Ljava/lang/Object;", false);
+		if (!array) {
+			read.visitMethodInsn(Opcodes.INVOKESTATIC, "java/util/Collections", "addAll", "(Ljava/util/Collection;[Ljava/lang/Object;)Z", false);
+			read.visitInsn(Opcodes.POP);
+		}
+	}
+
+	@Override
+	public void generateSkip(Class<?> cl, MethodVisitor skip) {
+		skip.visitVarInsn(Opcodes.ALOAD, 1); // FORMAT
+		skip.visitVarInsn(Opcodes.ALOAD, 2); // in
+		skip.visitMethodInsn(Opcodes.INVOKESTATIC, owner, "skip", "(Lunknow/serialize/binary/BinaryFormat;Ljava/io/InputStream;)V", false);
+	}
+}
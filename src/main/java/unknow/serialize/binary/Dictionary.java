@@ -0,0 +1,263 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * dictionary encoding written as [len][dictionary size][distinct values][index of each element], an index of 0 is a
+ * null element. On read each distinct value is decoded once and shared, see {@link CodecBuilder#DICTIONARY}
+ * 
+ * @author unknow
+ */
+public class Dictionary {
+	/** classes whose instances can be shared between the rows of a column */
+	private static final Set<Class<?>> IMMUTABLES = new HashSet<>(Arrays.asList(String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class));
+
+	private Dictionary() {
+	}
+
+	/**
+	 * write an object array
+	 * 
+	 * @param format the format
+	 * @param a      the array
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void write(BinaryFormat format, Object[] a, OutputStream out) throws IOException {
+		write(format, Arrays.asList(a), out);
+	}
+
+	/**
+	 * write a collection
+	 * 
+	 * @param format the format
+	 * @param c      the collection
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void write(BinaryFormat format, Collection<?> c, OutputStream out) throws IOException {
+		Values v = new Values(c);
+		IoUtils.write(out, v.index.length);
+		if (v.index.length > 0)
+			writeValues(format, v, out);
+	}
+
+	/**
+	 * read the elements
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param type   the element type
+	 * @return the elements
+	 * @throws IOException on IOException
+	 */
+	public static Object[] read(BinaryFormat format, InputStream in, Class<?> type) throws IOException {
+		int len = IoUtils.readInt(in);
+		Object[] a = (Object[]) Array.newInstance(type, len);
+		if (len > 0)
+			readValues(format, in, a, type, false);
+		return a;
+	}
+
+	/**
+	 * skip the elements
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @throws IOException on IOException
+	 */
+	public static void skip(BinaryFormat format, InputStream in) throws IOException {
+		int len = IoUtils.readInt(in);
+		if (len > 0)
+			skipValues(format, in, len);
+	}
+
+	/**
+	 * write a column as [0][values] or [1][dictionary][indexes] when the column has less than half distinct values, all
+	 * of an immutable type (String, enum or boxed primitive) as the decoded instances are shared between the rows
+	 * 
+	 * @param format the format
+	 * @param a      the column
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void writeColumn(BinaryFormat format, Object[] a, OutputStream out) throws IOException {
+		if (shareable(a)) {
+			out.write(1);
+			writeValues(format, new Values(Arrays.asList(a)), out);
+		} else {
+			out.write(0);
+			for (int i = 0; i < a.length; i++)
+				format.write(a[i], out);
+		}
+	}
+
+	/**
+	 * @param a the column
+	 * @return true if all the values are immutable and less than half are distinct
+	 */
+	private static boolean shareable(Object[] a) {
+		int max = a.length / 2;
+		Set<Key> distinct = new HashSet<>();
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] == null)
+				continue;
+			if (!immutable(a[i]))
+				return false;
+			if (distinct.add(new Key(a[i])) && distinct.size() > max)
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean immutable(Object o) {
+		return o instanceof Enum || IMMUTABLES.contains(o.getClass());
+	}
+
+	/**
+	 * read a column written by {@link #writeColumn(BinaryFormat, Object[], OutputStream)}
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param n      the number of values
+	 * @return the column
+	 * @throws IOException on IOException
+	 */
+	public static Object[] readColumn(BinaryFormat format, InputStream in, int n) throws IOException {
+		Object[] a = new Object[n];
+		if (mode(in) == 0) {
+			for (int i = 0; i < n; i++)
+				a[i] = format.read(in);
+		} else
+			readValues(format, in, a, Object.class, true);
+		return a;
+	}
+
+	/**
+	 * skip a column written by {@link #writeColumn(BinaryFormat, Object[], OutputStream)}
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param n      the number of values
+	 * @throws IOException on IOException
+	 */
+	public static void skipColumn(BinaryFormat format, InputStream in, int n) throws IOException {
+		if (mode(in) == 0) {
+			for (int i = 0; i < n; i++)
+				format.skip(in);
+		} else
+			skipValues(format, in, n);
+	}
+
+	private static int mode(InputStream in) throws IOException {
+		int m = in.read();
+		if (m < 0)
+			throw new IOException("end of stream reached");
+		if (m > 1)
+			throw new IOException("corrupt stream (invalid column mode)");
+		return m;
+	}
+
+	private static void writeValues(BinaryFormat format, Values v, OutputStream out) throws IOException {
+		IoUtils.write(out, v.values.size());
+		for (Object o : v.values)
+			format.write(o, out);
+		for (int i = 0; i < v.index.length; i++)
+			IoUtils.write(out, v.index[i]);
+	}
+
+	private static void readValues(BinaryFormat format, InputStream in, Object[] a, Class<?> type, boolean immutable) throws IOException {
+		int d = IoUtils.readInt(in);
+		if (d < 0 || d > a.length)
+			throw new IOException("corrupt stream (invalid dictionary size)");
+		Object[] dict = new Object[d + 1];
+		for (int i = 1; i <= d; i++) {
+			Object o = format.read(in);
+			if (o != null && !type.isInstance(o))
+				throw new IOException("object not a " + type.getName());
+			if (immutable && o != null && !immutable(o))
+				throw new IOException("corrupt stream (mutable dictionary value)");
+			dict[i] = o;
+		}
+		for (int i = 0; i < a.length; i++) {
+			int k = IoUtils.readInt(in);
+			if (k < 0 || k > d)
+				throw new IOException("corrupt stream (invalid dictionary index)");
+			a[i] = dict[k];
+		}
+	}
+
+	private static void skipValues(BinaryFormat format, InputStream in, int len) throws IOException {
+		int d = IoUtils.readInt(in);
+		if (d < 0 || d > len)
+			throw new IOException("corrupt stream (invalid dictionary size)");
+		for (int i = 0; i < d; i++)
+			format.skip(in);
+		for (int i = 0; i < len; i++)
+			IoUtils.skipVarint(in);
+	}
+
+	/**
+	 * the distinct values of a collection and the index of each element
+	 */
+	private static final class Values {
+		final List<Object> values = new ArrayList<>();
+		final int[] index;
+
+		Values(Collection<?> c) {
+			Map<Key, Integer> map = new HashMap<>();
+			int[] idx = new int[c.size()];
+			int i = 0;
+			for (Object o : c) {
+				if (i == idx.length)
+					idx = Arrays.copyOf(idx, i * 2 + 1);
+				if (o != null) {
+					Key k = new Key(o);
+					Integer j = map.get(k);
+					if (j == null) {
+						values.add(o);
+						map.put(k, j = values.size());
+					}
+					idx[i] = j;
+				}
+				i++;
+			}
+			index = i == idx.length ? idx : Arrays.copyOf(idx, i);
+		}
+	}
+
+	/**
+	 * equals value of the same class, so an ArrayList isn't replaced by an equals LinkedList
+	 */
+	private static final class Key {
+		private final Object o;
+
+		Key(Object o) {
+			this.o = o;
+		}
+
+		@Override
+		public int hashCode() {
+			return o.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Object other = ((Key) obj).o;
+			return o.getClass() == other.getClass() && o.equals(other);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package unknow.serialize.binary;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * bounded LRU cache of encoded bytes keyed on the object identity, the objects are weakly referenced. Used by the codec
+ * of the classes registered with {@link BinaryFormatBuilder#cache(Class, int)}<br>
+ * Large caches are split in up to 16 stripes by identity hash, each with its own lock and LRU order, so concurrent
+ * writers don't contend on a single lock; the eviction is then per stripe.
+ * 
+ * @author unknow
+ */
+public final class EncodedCache {
+	private static final int STRIPES = 16;
+	/** min entries per stripe */
+	private static final int STRIPE_MIN = 64;
+
+	private final Stripe[] stripes;
+
+	/**
+	 * create a new EncodedCache
+	 * 
+	 * @param maxEntries max number of cached objects
+	 */
+	public EncodedCache(int maxEntries) {
+		int n = 1;
+		while (n < STRIPES && maxEntries / (n * 2) >= STRIPE_MIN)
+			n <<= 1;
+		stripes = new Stripe[n];
+		for (int i = 0; i < n; i++)
+			stripes[i] = new Stripe(maxEntries / n);
+	}
+
+	/**
+	 * @param o the object
+	 * @return the cached encoding or null
+	 */
+	public byte[] get(Object o) {
+		int hash = System.identityHashCode(o);
+		return stripe(hash).get(o, hash);
+	}
+
+	/**
+	 * @param o     the object
+	 * @param bytes its encoding
+	 */
+	public void put(Object o, byte[] bytes) {
+		int hash = System.identityHashCode(o);
+		Stripe s = stripe(hash);
+		s.put(new Key(o, hash, s.queue), bytes);
+	}
+
+	/**
+	 * @return number of cached objects
+	 */
+	public int size() {
+		int size = 0;
+		for (int i = 0; i < stripes.length; i++)
+			size += stripes[i].size();
+		return size;
+	}
+
+	private Stripe stripe(int hash) {
+		return stripes[(hash ^ hash >>> 16) & (stripes.length - 1)];
+	}
+
+	private static final class Stripe {
+		final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+		/** the keys are {@link Key}, lookups use the reusable lookup key */
+		private final Map<Object, byte[]> map;
+		private final Lookup lookup = new Lookup();
+
+		Stripe(int maxEntries) {
+			this.map = new LinkedHashMap<Object, byte[]>(16, .75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Object, byte[]> eldest) {
+					return size() > maxEntries;
+				}
+			};
+		}
+
+		synchronized byte[] get(Object o, int hash) {
+			expunge();
+			lookup.o = o;
+			lookup.hash = hash;
+			try {
+				return map.get(lookup);
+			} finally {
+				lookup.o = null;
+			}
+		}
+
+		synchronized void put(Key k, byte[] bytes) {
+			expunge();
+			map.put(k, bytes);
+		}
+
+		synchronized int size() {
+			expunge();
+			return map.size();
+		}
+
+		private void expunge() {
+			Reference<?> r;
+			while ((r = queue.poll()) != null)
+				map.remove(r);
+		}
+	}
+
+	private static final class Key extends WeakReference<Object> {
+		private final int hash;
+
+		Key(Object o, int hash, ReferenceQueue<Object> queue) {
+			super(o, queue);
+			this.hash = hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this)
+				return true;
+			Object o = get();
+			if (obj instanceof Lookup)
+				return o != null && o == ((Lookup) obj).o;
+			if (!(obj instanceof Key))
+				return false;
+			return o != null && o == ((Key) obj).get();
+		}
+	}
+
+	/**
+	 * mutable key used to lookup a stripe under its lock without allocating a {@link Key}
+	 */
+	private static final class Lookup {
+		Object o;
+		int hash;
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && o == ((Key) obj).get();
+		}
+	}
+}
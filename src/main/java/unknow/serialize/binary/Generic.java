@@ -0,0 +1,397 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import unknow.serialize.Codec;
+
+/**
+ * typed collection and map fields (List&lt;Order&gt;, Map&lt;String, Long&gt;) whose type arguments are final classes,
+ * the element codecs are resolved once by the caller (in a field of the generated codec) and the elements are written
+ * without their id.<br>
+ * A value is written as [0] for null, [2][object] if it doesn't match the field type (other collection class or
+ * element class) or [1][len][null flags] then the elements, each prefixed by a presence byte only if the flags say
+ * there is null.
+ * 
+ * @author unknow
+ */
+public class Generic {
+	private static final int NULL = 0;
+	private static final int TYPED = 1;
+	private static final int OBJECT = 2;
+
+	private Generic() {
+	}
+
+	/**
+	 * @param f the field
+	 * @return the type arguments or null if the field isn't a typed collection or map
+	 */
+	static TypeArgs typeArgs(Field f) {
+		Type t = f.getGenericType();
+		if (!(t instanceof ParameterizedType))
+			return null;
+		Class<?> type = f.getType();
+		int n = Map.class.isAssignableFrom(type) ? 2 : Collection.class.isAssignableFrom(type) ? 1 : 0;
+		// only java.util types are known to map their parameters to the elements
+		if (n == 0 || !type.getName().startsWith("java.util."))
+			return null;
+		Type[] args = ((ParameterizedType) t).getActualTypeArguments();
+		if (args.length != n)
+			return null;
+		Class<?> impl = impl(type);
+		if (impl == null)
+			return null;
+		Class<?>[] r = new Class<?>[n];
+		for (int i = 0; i < n; i++) {
+			if (!(args[i] instanceof Class))
+				return null;
+			Class<?> cl = (Class<?>) args[i];
+			if (!Modifier.isFinal(cl.getModifiers()) || cl.isPrimitive())
+				return null;
+			r[i] = cl;
+		}
+		return new TypeArgs(impl, r[0], n == 2 ? r[1] : null);
+	}
+
+	/**
+	 * @param type the field type
+	 * @return the class instantiated on read
+	 */
+	private static Class<?> impl(Class<?> type) {
+		if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+			try {
+				type.getConstructor();
+				return type;
+			} catch (NoSuchMethodException e) {
+				return null;
+			}
+		}
+		if (type == List.class || type == Collection.class)
+			return ArrayList.class;
+		if (type == Set.class)
+			return HashSet.class;
+		if (type == Map.class)
+			return HashMap.class;
+		return null;
+	}
+
+	/**
+	 * write a typed collection field
+	 * 
+	 * @param format the format
+	 * @param c      the collection
+	 * @param impl   the collection class
+	 * @param elem   the element class
+	 * @param codec  the element codec, see {@link #codec(BinaryFormat, Class)}
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void writeCollection(BinaryFormat format, Collection<?> c, Class<?> impl, Class<?> elem, Codec codec, OutputStream out) throws IOException {
+		if (c == null) {
+			out.write(NULL);
+			return;
+		}
+		boolean nulls = false;
+		boolean typed = c.getClass() == impl;
+		for (Object o : c) {
+			if (!typed)
+				break;
+			if (o == null)
+				nulls = true;
+			else
+				typed = o.getClass() == elem;
+		}
+		if (!typed) {
+			object(format, c, out);
+			return;
+		}
+		out.write(TYPED);
+		IoUtils.write(out, c.size());
+		out.write(nulls ? 1 : 0);
+		for (Object o : c)
+			write(format, codec, nulls, o, out);
+	}
+
+	/**
+	 * write a typed map field
+	 * 
+	 * @param format the format
+	 * @param m      the map
+	 * @param impl   the map class
+	 * @param key    the key class
+	 * @param value  the value class
+	 * @param k      the key codec
+	 * @param v      the value codec
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void writeMap(BinaryFormat format, Map<?, ?> m, Class<?> impl, Class<?> key, Class<?> value, Codec k, Codec v, OutputStream out) throws IOException {
+		if (m == null) {
+			out.write(NULL);
+			return;
+		}
+		int nulls = 0;
+		boolean typed = m.getClass() == impl;
+		for (Map.Entry<?, ?> e : m.entrySet()) {
+			if (!typed)
+				break;
+			Object ek = e.getKey();
+			Object ev = e.getValue();
+			if (ek == null)
+				nulls |= 1;
+			else
+				typed = ek.getClass() == key;
+			if (ev == null)
+				nulls |= 2;
+			else
+				typed &= ev.getClass() == value;
+		}
+		if (!typed) {
+			object(format, m, out);
+			return;
+		}
+		out.write(TYPED);
+		IoUtils.write(out, m.size());
+		out.write(nulls);
+		for (Map.Entry<?, ?> e : m.entrySet()) {
+			write(format, k, (nulls & 1) != 0, e.getKey(), out);
+			write(format, v, (nulls & 2) != 0, e.getValue(), out);
+		}
+	}
+
+	/**
+	 * read a typed collection field
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param impl   the collection class
+	 * @param codec  the element codec
+	 * @return the collection
+	 * @throws IOException on IOException
+	 */
+	@SuppressWarnings("unchecked")
+	public static Object readCollection(BinaryFormat format, InputStream in, Class<?> impl, Codec codec) throws IOException {
+		switch (marker(in)) {
+			case NULL:
+				return null;
+			case OBJECT:
+				return format.read(in);
+			default:
+		}
+		int len = IoUtils.readInt(in);
+		boolean nulls = flags(in, 1) != 0;
+		Collection<Object> c = impl == ArrayList.class ? new ArrayList<>(len) : (Collection<Object>) create(impl);
+		for (int i = 0; i < len; i++)
+			c.add(read(format, codec, nulls, in));
+		return c;
+	}
+
+	/**
+	 * read a typed map field
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param impl   the map class
+	 * @param k      the key codec
+	 * @param v      the value codec
+	 * @return the map
+	 * @throws IOException on IOException
+	 */
+	@SuppressWarnings("unchecked")
+	public static Object readMap(BinaryFormat format, InputStream in, Class<?> impl, Codec k, Codec v) throws IOException {
+		switch (marker(in)) {
+			case NULL:
+				return null;
+			case OBJECT:
+				return format.read(in);
+			default:
+		}
+		int len = IoUtils.readInt(in);
+		int nulls = flags(in, 3);
+		Map<Object, Object> m = impl == HashMap.class ? new HashMap<>() : (Map<Object, Object>) create(impl);
+		for (int i = 0; i < len; i++)
+			m.put(read(format, k, (nulls & 1) != 0, in), read(format, v, (nulls & 2) != 0, in));
+		return m;
+	}
+
+	/**
+	 * skip a typed collection field
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param codec  the element codec
+	 * @throws IOException on IOException
+	 */
+	public static void skipCollection(BinaryFormat format, InputStream in, Codec codec) throws IOException {
+		switch (marker(in)) {
+			case NULL:
+				return;
+			case OBJECT:
+				format.skip(in);
+				return;
+			default:
+		}
+		int len = IoUtils.readInt(in);
+		boolean nulls = flags(in, 1) != 0;
+		for (int i = 0; i < len; i++)
+			skip(format, codec, nulls, in);
+	}
+
+	/**
+	 * skip a typed map field
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param k      the key codec
+	 * @param v      the value codec
+	 * @throws IOException on IOException
+	 */
+	public static void skipMap(BinaryFormat format, InputStream in, Codec k, Codec v) throws IOException {
+		switch (marker(in)) {
+			case NULL:
+				return;
+			case OBJECT:
+				format.skip(in);
+				return;
+			default:
+		}
+		int len = IoUtils.readInt(in);
+		int nulls = flags(in, 3);
+		for (int i = 0; i < len; i++) {
+			skip(format, k, (nulls & 1) != 0, in);
+			skip(format, v, (nulls & 2) != 0, in);
+		}
+	}
+
+	/**
+	 * read a field value
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param args   the field type arguments, see {@link #typeArgs(Field)}
+	 * @param k      the element or key codec
+	 * @param v      the value codec (null for a collection)
+	 * @return the value
+	 * @throws IOException on IOException
+	 */
+	static Object read(BinaryFormat format, InputStream in, TypeArgs args, Codec k, Codec v) throws IOException {
+		return args.isMap() ? readMap(format, in, args.impl, k, v) : readCollection(format, in, args.impl, k);
+	}
+
+	/**
+	 * skip a field value
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param args   the field type arguments, see {@link #typeArgs(Field)}
+	 * @param k      the element or key codec
+	 * @param v      the value codec (null for a collection)
+	 * @throws IOException on IOException
+	 */
+	static void skip(BinaryFormat format, InputStream in, TypeArgs args, Codec k, Codec v) throws IOException {
+		if (args.isMap())
+			skipMap(format, in, k, v);
+		else
+			skipCollection(format, in, k);
+	}
+
+	/**
+	 * resolve the codec of an element class
+	 * 
+	 * @param format the format
+	 * @param cl     the element class
+	 * @return the codec
+	 * @throws IOException if the class isn't registered
+	 */
+	public static Codec codec(BinaryFormat format, Class<?> cl) throws IOException {
+		int id = format.id(cl);
+		if (id == 0)
+			throw new IOException(cl + " isn't registered");
+		return format.codec(id);
+	}
+
+	private static void write(BinaryFormat format, Codec codec, boolean nulls, Object o, OutputStream out) throws IOException {
+		if (nulls)
+			out.write(o == null ? 0 : 1);
+		if (o != null)
+			codec.write(format, o, out);
+	}
+
+	private static Object read(BinaryFormat format, Codec codec, boolean nulls, InputStream in) throws IOException {
+		if (nulls && flags(in, 1) == 0)
+			return null;
+		return codec.read(format, in);
+	}
+
+	private static void skip(BinaryFormat format, Codec codec, boolean nulls, InputStream in) throws IOException {
+		if (!nulls || flags(in, 1) != 0)
+			codec.skip(format, in);
+	}
+
+	private static void object(BinaryFormat format, Object o, OutputStream out) throws IOException {
+		if (format.id(o.getClass()) == 0)
+			throw new IOException(o.getClass() + " isn't registered");
+		out.write(OBJECT);
+		format.write(o, out);
+	}
+
+	private static int marker(InputStream in) throws IOException {
+		int m = IoUtils.read(in);
+		if (m > OBJECT)
+			throw new IOException("corrupt stream (invalid typed field)");
+		return m;
+	}
+
+	private static int flags(InputStream in, int max) throws IOException {
+		int f = IoUtils.read(in);
+		if (f > max)
+			throw new IOException("corrupt stream (invalid null flags)");
+		return f;
+	}
+
+	private static Object create(Class<?> impl) throws IOException {
+		try {
+			return impl.getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IOException("failed to create " + impl.getName(), e);
+		}
+	}
+
+	/**
+	 * type arguments of a typed collection or map field
+	 */
+	static final class TypeArgs {
+		/** class instantiated on read */
+		final Class<?> impl;
+		/** element or key class */
+		final Class<?> key;
+		/** value class, null for a collection */
+		final Class<?> value;
+
+		TypeArgs(Class<?> impl, Class<?> key, Class<?> value) {
+			this.impl = impl;
+			this.key = key;
+			this.value = value;
+		}
+
+		/**
+		 * @return true for a map field
+		 */
+		boolean isMap() {
+			return value != null;
+		}
+	}
+}
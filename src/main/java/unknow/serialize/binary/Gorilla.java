@@ -0,0 +1,96 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+
+/**
+ * xor floating point compression: each value is xored with the previous one, then written as
+ * <ul>
+ * <li>'0' if equals</li>
+ * <li>'10' + meaningful bits if they fit in the previous leading/trailing zeros window</li>
+ * <li>'11' + leading zeros (5 bits) + meaningful length + meaningful bits otherwise</li>
+ * </ul>
+ * The first value is written raw.
+ * 
+ * @author unknow
+ */
+public final class Gorilla {
+	private final int width;
+	private final int lenBits;
+
+	private long prev;
+	private boolean first = true;
+	private int lead = -1;
+	private int trail;
+
+	/**
+	 * create a new Gorilla state
+	 * 
+	 * @param width the value width 32 or 64
+	 */
+	public Gorilla(int width) {
+		this.width = width;
+		this.lenBits = width == 64 ? 6 : 5;
+	}
+
+	/**
+	 * encode the next value
+	 * 
+	 * @param w the output
+	 * @param v the raw bits of the value
+	 * @throws IOException on IOException
+	 */
+	public void write(BitWriter w, long v) throws IOException {
+		if (first) {
+			w.write(v, width);
+			first = false;
+			prev = v;
+			return;
+		}
+		long x = v ^ prev;
+		prev = v;
+		if (x == 0) {
+			w.write(false);
+			return;
+		}
+		int l = Math.min(31, Long.numberOfLeadingZeros(x) - (64 - width));
+		int t = Long.numberOfTrailingZeros(x);
+		w.write(true);
+		if (lead >= 0 && l >= lead && t >= trail) {
+			w.write(false);
+			w.write(x >>> trail, width - lead - trail);
+			return;
+		}
+		lead = l;
+		trail = t;
+		int len = width - l - t;
+		w.write(true);
+		w.write(l, 5);
+		w.write(len - 1, lenBits);
+		w.write(x >>> t, len);
+	}
+
+	/**
+	 * decode the next value
+	 * 
+	 * @param r the input
+	 * @return the raw bits of the value
+	 * @throws IOException on IOException
+	 */
+	public long read(BitReader r) throws IOException {
+		if (first) {
+			first = false;
+			return prev = r.read(width);
+		}
+		if (!r.readBit())
+			return prev;
+		if (r.readBit()) {
+			lead = (int) r.read(5);
+			int len = (int) r.read(lenBits) + 1;
+			trail = width - lead - len;
+			if (trail < 0)
+				throw new IOException("corrupt stream (invalid xor window)");
+		} else if (lead < 0)
+			throw new IOException("corrupt stream (no xor window)");
+		return prev ^= r.read(width - lead - trail) << trail;
+	}
+}
@@ -0,0 +1,162 @@
+package unknow.serialize.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+/**
+ * block indexed encoding of large collections, written as [len][block size][byte length of each block][blocks] so the
+ * blocks can be decoded in parallel, see {@link CodecBuilder#indexed(int)}
+ * 
+ * @author unknow
+ */
+public class IndexedBlocks {
+	private IndexedBlocks() {
+	}
+
+	/**
+	 * write an object array
+	 * 
+	 * @param format    the format
+	 * @param a         the array
+	 * @param blockSize number of element per block
+	 * @param out       the output
+	 * @throws IOException on IOException
+	 */
+	public static void write(BinaryFormat format, Object[] a, int blockSize, OutputStream out) throws IOException {
+		write(format, new Iterator<Object>() {
+			private int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < a.length;
+			}
+
+			@Override
+			public Object next() {
+				return a[i++];
+			}
+		}, a.length, blockSize, out);
+	}
+
+	/**
+	 * write a collection
+	 * 
+	 * @param format    the format
+	 * @param c         the collection
+	 * @param blockSize number of element per block
+	 * @param out       the output
+	 * @throws IOException on IOException
+	 */
+	public static void write(BinaryFormat format, Collection<?> c, int blockSize, OutputStream out) throws IOException {
+		write(format, c.iterator(), c.size(), blockSize, out);
+	}
+
+	private static void write(BinaryFormat format, Iterator<?> it, int len, int blockSize, OutputStream out) throws IOException {
+		int blocks = (len + blockSize - 1) / blockSize;
+		int[] sizes = new int[blocks];
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		for (int b = 0; b < blocks; b++) {
+			int start = data.size();
+			for (int i = Math.min(blockSize, len - b * blockSize); i > 0; i--)
+				format.write(it.next(), data);
+			sizes[b] = data.size() - start;
+		}
+		IoUtils.write(out, len);
+		IoUtils.write(out, blockSize);
+		for (int i = 0; i < blocks; i++)
+			IoUtils.write(out, sizes[i]);
+		data.writeTo(out);
+	}
+
+	/**
+	 * read the elements, blocks are decoded in parallel in the common ForkJoinPool
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param type   the component type of the returned array
+	 * @return the elements
+	 * @throws IOException on IOException
+	 */
+	public static Object[] read(BinaryFormat format, InputStream in, Class<?> type) throws IOException {
+		int len = IoUtils.readInt(in);
+		int blockSize = IoUtils.readInt(in);
+		int blocks = blocks(len, blockSize);
+		int[] offsets = new int[blocks + 1];
+		for (int i = 0; i < blocks; i++)
+			offsets[i + 1] = next(offsets[i], in);
+		byte[] data = new byte[offsets[blocks]];
+		IoUtils.fill(in, data);
+
+		Object[] a = (Object[]) Array.newInstance(type, len);
+		try {
+			IntStream.range(0, blocks).parallel().forEach(b -> {
+				ByteArrayInputStream block = new ByteArrayInputStream(data, offsets[b], offsets[b + 1] - offsets[b]);
+				int end = (int) Math.min(len, (b + 1L) * blockSize);
+				try {
+					for (int i = (int) ((long) b * blockSize); i < end; i++) {
+						Object o = format.read(block);
+						if (o != null && !type.isInstance(o))
+							throw new IOException("object not a " + type.getName());
+						a[i] = o;
+					}
+					if (block.available() != 0)
+						throw new IOException("corrupt stream (block not fully read)");
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return a;
+	}
+
+	/**
+	 * skip the elements
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @throws IOException on IOException
+	 */
+	public static void skip(BinaryFormat format, InputStream in) throws IOException {
+		int len = IoUtils.readInt(in);
+		int blocks = blocks(len, IoUtils.readInt(in));
+		int size = 0;
+		for (int i = 0; i < blocks; i++)
+			size = next(size, in);
+		IoUtils.skip(in, size);
+	}
+
+	/**
+	 * @param len       number of element
+	 * @param blockSize number of element per block
+	 * @return number of block
+	 * @throws IOException if len or blockSize are invalid
+	 */
+	private static int blocks(int len, int blockSize) throws IOException {
+		if (len < 0 || blockSize <= 0)
+			throw new IOException("corrupt stream (invalid block size)");
+		return (int) ((len + (long) blockSize - 1) / blockSize);
+	}
+
+	/**
+	 * @param offset offset of the block
+	 * @param in     the input
+	 * @return offset of the next block
+	 * @throws IOException if the block size is invalid
+	 */
+	private static int next(int offset, InputStream in) throws IOException {
+		long next = offset + (long) IoUtils.readInt(in);
+		if (next < offset || next > Integer.MAX_VALUE)
+			throw new IOException("corrupt stream (invalid block length)");
+		return (int) next;
+	}
+}
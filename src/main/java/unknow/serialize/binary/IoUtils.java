@@ -3,11 +3,15 @@ package unknow.serialize.binary;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 /**
  * @author unknow
  */
 public class IoUtils {
+	/** initial buffer of {@link #readBytes(InputStream, int)} */
+	private static final int CHUNK = 1 << 16;
+
 	/**
 	 * read one byte and throws IOException if noting to read
 	 * 
@@ -30,17 +34,95 @@ public class IoUtils {
 	 * @throws IOException on out.read error or end of stream reached
 	 */
 	public static void fill(InputStream in, byte[] b) throws IOException {
-		int l = b.length;
-		int i = 0;
-		while (l > 0) {
-			int s = in.read(b, i, l);
+		fill(in, b, 0, b.length);
+	}
+
+	/**
+	 * try to fill a part of the buffer
+	 * 
+	 * @param in  the input
+	 * @param b   the buffer to fill
+	 * @param off the first byte to fill
+	 * @param len number of byte to read
+	 * @throws IOException on out.read error or end of stream reached
+	 */
+	public static void fill(InputStream in, byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			int s = in.read(b, off, len);
 			if (s == -1)
 				throw new IOException("end of stream reached");
-			l -= s;
-			i += s;
+			len -= s;
+			off += s;
+		}
+	}
+
+	/**
+	 * read len bytes, the buffer grows as the data is read so a corrupt length fails on end of stream instead of
+	 * allocating it upfront
+	 * 
+	 * @param in  the input
+	 * @param len number of byte to read
+	 * @return the bytes
+	 * @throws IOException on IOException, negative length or end of stream reached
+	 */
+	public static byte[] readBytes(InputStream in, int len) throws IOException {
+		if (len < 0)
+			throw new IOException("corrupt stream (invalid length)");
+		byte[] b = new byte[Math.min(len, CHUNK)];
+		int n = 0;
+		while (true) {
+			fill(in, b, n, b.length - n);
+			n = b.length;
+			if (n == len)
+				return b;
+			b = Arrays.copyOf(b, (int) Math.min(len, n * 2L));
+		}
+	}
+
+	/**
+	 * skip n bytes and throws IOException if end of stream is reached first
+	 * 
+	 * @param in the input
+	 * @param n  the number of bytes to skip
+	 * @throws IOException on IOException or end of stream reached
+	 */
+	public static void skip(InputStream in, long n) throws IOException {
+		while (n > 0) {
+			long s = in.skip(n);
+			if (s <= 0) {
+				read(in);
+				s = 1;
+			}
+			n -= s;
 		}
 	}
 
+	/**
+	 * skip a 1-9 byte int or long
+	 * 
+	 * @param in the input
+	 * @throws IOException on IOException
+	 */
+	public static void skipVarint(InputStream in) throws IOException {
+		// the 9th byte of a long is a full byte
+		for (int i = 0; i < 8; i++) {
+			if ((read(in) & 0x80) == 0)
+				return;
+		}
+		read(in);
+	}
+
+	/**
+	 * read a 4 byte little endian int
+	 * 
+	 * @param in the input
+	 * @return the value
+	 * @throws IOException on IOException
+	 */
+	public static int readFixedInt(InputStream in) throws IOException {
+		return read(in) | read(in) << 8 | read(in) << 16 | read(in) << 24;
+	}
+
 	/**
 	 * Writes a 1-5 byte int.
 	 * 
@@ -72,6 +154,46 @@ public class IoUtils {
 		}
 	}
 
+	/**
+	 * zigzag encode an int so small negative values get a short varint
+	 * 
+	 * @param v the value
+	 * @return the encoded value
+	 */
+	public static int zigzag(int v) {
+		return (v << 1) ^ (v >> 31);
+	}
+
+	/**
+	 * decode a zigzag encoded int
+	 * 
+	 * @param v the encoded value
+	 * @return the value
+	 */
+	public static int unzigzag(int v) {
+		return (v >>> 1) ^ -(v & 1);
+	}
+
+	/**
+	 * zigzag encode a long so small negative values get a short varint
+	 * 
+	 * @param v the value
+	 * @return the encoded value
+	 */
+	public static long zigzag(long v) {
+		return (v << 1) ^ (v >> 63);
+	}
+
+	/**
+	 * decode a zigzag encoded long
+	 * 
+	 * @param v the encoded value
+	 * @return the value
+	 */
+	public static long unzigzag(long v) {
+		return (v >>> 1) ^ -(v & 1);
+	}
+
 	/**
 	 * read 1-5 byte int
 	 * 
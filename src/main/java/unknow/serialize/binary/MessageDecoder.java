@@ -0,0 +1,111 @@
+package unknow.serialize.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * push decoder for framed messages (see {@link BinaryFormat#writeMessage(Object, java.io.OutputStream)}) to be used
+ * with non blocking io. Fragments are buffered until a whole message is available, a partial message is never parsed.
+ * 
+ * <pre>
+ * while (decoder.feed(buffer))
+ * 	handle(decoder.next());
+ * </pre>
+ * 
+ * @author unknow
+ */
+public class MessageDecoder {
+	private final BinaryFormat format;
+	private final int maxLength;
+
+	private byte[] buf = new byte[4096];
+	/** first unread byte */
+	private int start;
+	/** end of the buffered data */
+	private int end;
+	/** length of the current message, -1 if the header isn't read */
+	private int len = -1;
+
+	/**
+	 * create a new MessageDecoder
+	 * 
+	 * @param format    the format
+	 * @param maxLength max accepted message length
+	 */
+	public MessageDecoder(BinaryFormat format, int maxLength) {
+		this.format = format;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * buffer all the remaining bytes of the fragment
+	 * 
+	 * @param src the fragment
+	 * @return true if a message is available
+	 * @throws IOException if a message is longer than maxLength or its length is invalid
+	 */
+	public boolean feed(ByteBuffer src) throws IOException {
+		int r = src.remaining();
+		if (end + r > buf.length) {
+			System.arraycopy(buf, start, buf, 0, end - start);
+			end -= start;
+			start = 0;
+			if (end + r > buf.length)
+				buf = Arrays.copyOf(buf, Math.max(buf.length * 2, end + r));
+		}
+		src.get(buf, end, r);
+		end += r;
+		return available();
+	}
+
+	/**
+	 * @return true if a whole message is buffered
+	 * @throws IOException if a message is longer than maxLength or its length is invalid
+	 */
+	public boolean available() throws IOException {
+		if (len < 0) {
+			int l = 0;
+			int i = start;
+			for (int shift = 0;; shift += 7) {
+				if (i == end)
+					return false;
+				int b = buf[i++] & 0xFF;
+				l |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					break;
+				if (shift == 28)
+					throw new IOException("corrupt stream (invalid message length)");
+			}
+			if (l < 0)
+				throw new IOException("corrupt stream (invalid message length)");
+			if (l > maxLength)
+				throw new IOException("message too long " + l);
+			start = i;
+			len = l;
+		}
+		return end - start >= len;
+	}
+
+	/**
+	 * decode the next message
+	 * 
+	 * @return the object
+	 * @throws IOException on corrupted message
+	 */
+	public Object next() throws IOException {
+		if (!available())
+			throw new NoSuchElementException();
+		ByteArrayInputStream in = new ByteArrayInputStream(buf, start, len);
+		start += len;
+		len = -1;
+		if (start == end)
+			start = end = 0;
+		Object o = format.read(in);
+		if (in.available() != 0)
+			throw new IOException("corrupt message (length mismatch)");
+		return o;
+	}
+}
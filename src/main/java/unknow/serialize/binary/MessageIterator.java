@@ -0,0 +1,70 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * iterate over the messages of a framed stream until its end, see {@link BinaryFormat#writeMessage(Object, java.io.OutputStream)}.
+ * IOException are rethrown as UncheckedIOException
+ * 
+ * @author unknow
+ */
+public class MessageIterator implements Iterator<Object> {
+	private final BinaryFormat format;
+	private final InputStream in;
+	/** length of the next message, -1 if not read, -2 on end of stream */
+	private int len = -1;
+
+	/**
+	 * create a new MessageIterator
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 */
+	public MessageIterator(BinaryFormat format, InputStream in) {
+		this.format = format;
+		this.in = in;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (len == -1) {
+			try {
+				int b = in.read();
+				if (b == -1) {
+					len = -2;
+					return false;
+				}
+				int l = b & 0x7F;
+				for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+					if (shift == 35)
+						throw new IOException("corrupt stream (invalid message length)");
+					b = IoUtils.read(in);
+					l |= (b & 0x7F) << shift;
+				}
+				if (l < 0)
+					throw new IOException("corrupt stream (invalid message length)");
+				len = l;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return len >= 0;
+	}
+
+	@Override
+	public Object next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		int l = len;
+		len = -1;
+		try {
+			return BinaryFormat.decodeMessage(format, IoUtils.readBytes(in, l));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
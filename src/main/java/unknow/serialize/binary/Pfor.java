@@ -0,0 +1,117 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * patched frame of reference encoding of integer blocks: [zigzag min][bit width][exception count][packed residuals]
+ * [exceptions], residuals wider than the bit width store their high bits as [index][varint] exceptions
+ * 
+ * @author unknow
+ */
+public final class Pfor {
+	/** max number of value per block */
+	public static final int BLOCK = 128;
+
+	private Pfor() {
+	}
+
+	/**
+	 * write a block, the values are replaced by the residuals
+	 * 
+	 * @param out   the output
+	 * @param block the values
+	 * @param n     the number of values (1-{@link #BLOCK})
+	 * @throws IOException on IOException
+	 */
+	public static void write(OutputStream out, long[] block, int n) throws IOException {
+		long min = block[0];
+		for (int i = 1; i < n; i++)
+			min = Math.min(min, block[i]);
+		int[] hist = new int[65];
+		for (int i = 0; i < n; i++) {
+			block[i] -= min;
+			hist[64 - Long.numberOfLeadingZeros(block[i])]++;
+		}
+
+		int b = 64;
+		long best = (n * 64L + 7) / 8;
+		for (int w = 0; w < 64; w++) {
+			long cost = (n * (long) w + 7) / 8;
+			for (int l = w + 1; l <= 64; l++)
+				cost += hist[l] * (1 + (l - w + 6) / 7);
+			if (cost < best) {
+				best = cost;
+				b = w;
+			}
+		}
+
+		int exc = 0;
+		if (b < 64) {
+			for (int l = b + 1; l <= 64; l++)
+				exc += hist[l];
+		}
+		IoUtils.write(out, IoUtils.zigzag(min));
+		out.write(b);
+		IoUtils.write(out, exc);
+		BitWriter w = new BitWriter(out);
+		for (int i = 0; i < n; i++)
+			w.write(block[i], b);
+		w.flush();
+		if (exc > 0) {
+			for (int i = 0; i < n; i++) {
+				long h = block[i] >>> b;
+				if (h != 0) {
+					out.write(i);
+					IoUtils.write(out, h);
+				}
+			}
+		}
+	}
+
+	/**
+	 * read a block
+	 * 
+	 * @param in    the input
+	 * @param block the values
+	 * @param n     the number of values (1-{@link #BLOCK})
+	 * @throws IOException on IOException
+	 */
+	public static void read(InputStream in, long[] block, int n) throws IOException {
+		long min = IoUtils.unzigzag(IoUtils.readLong(in));
+		int b = IoUtils.read(in);
+		if (b > 64)
+			throw new IOException("corrupt block (invalid bit width)");
+		int exc = IoUtils.readInt(in);
+		BitReader r = new BitReader(in);
+		for (int i = 0; i < n; i++)
+			block[i] = r.read(b);
+		for (int i = 0; i < exc; i++) {
+			int j = IoUtils.read(in);
+			if (j >= n)
+				throw new IOException("corrupt block (invalid exception)");
+			block[j] |= IoUtils.readLong(in) << b;
+		}
+		for (int i = 0; i < n; i++)
+			block[i] += min;
+	}
+
+	/**
+	 * skip a block
+	 * 
+	 * @param in the input
+	 * @param n  the number of values (1-{@link #BLOCK})
+	 * @throws IOException on IOException
+	 */
+	public static void skip(InputStream in, int n) throws IOException {
+		IoUtils.skipVarint(in);
+		int b = IoUtils.read(in);
+		int exc = IoUtils.readInt(in);
+		IoUtils.skip(in, (n * (long) b + 7) / 8);
+		for (int i = 0; i < exc; i++) {
+			IoUtils.read(in);
+			IoUtils.skipVarint(in);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import unknow.serialize.Codec;
+
+/**
+ * reader that only decode some fields of an object, see {@link BinaryFormatBuilder#projection(Class, String...)}
+ * 
+ * @author unknow
+ * @param <T> the projected class
+ */
+public final class Projection<T> {
+	private final Class<T> cl;
+	private final int id;
+	private final Class<? extends Codec> type;
+	/** codec instance bound to the last format, it keeps the element codecs resolved in that format */
+	private volatile Bound bound;
+
+	Projection(Class<T> cl, int id, Class<? extends Codec> type) {
+		this.cl = cl;
+		this.id = id;
+		this.type = type;
+	}
+
+	/**
+	 * read an object written by {@link BinaryFormat#write(Object, java.io.OutputStream)}, only the projected fields are set
+	 * 
+	 * @param format the format used to write the object
+	 * @param in     the input
+	 * @return the partial object
+	 * @throws IOException on IOException or if the object isn't a projected class
+	 */
+	public T read(BinaryFormat format, InputStream in) throws IOException {
+		int i = IoUtils.readInt(in);
+		if (i == 0)
+			return null;
+		if (i != id)
+			throw new IOException("object not a " + cl.getName());
+		Bound b = bound;
+		if (b == null || b.format != format) {
+			try {
+				b = new Bound(format, type.newInstance());
+			} catch (ReflectiveOperationException e) {
+				throw new IOException("failed to create projection codec", e);
+			}
+			bound = b;
+		}
+		return cl.cast(b.codec.read(format, in));
+	}
+
+	private static final class Bound {
+		final BinaryFormat format;
+		final Codec codec;
+
+		Bound(BinaryFormat format, Codec codec) {
+			this.format = format;
+			this.codec = codec;
+		}
+	}
+}
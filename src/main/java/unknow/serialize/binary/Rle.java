@@ -0,0 +1,197 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * adaptive run length encoding written as [len] then segments of [(count &lt;&lt; 1) | isRun] followed by one value for
+ * a run or count values for a literal, see {@link CodecBuilder#RLE}
+ * 
+ * @author unknow
+ */
+public class Rle {
+	/** min run length for object values */
+	public static final int MIN_RUN = 2;
+
+	private Rle() {
+	}
+
+	/**
+	 * compare two elements
+	 */
+	public interface Equals {
+		/**
+		 * @param a first index
+		 * @param b second index
+		 * @return true if the two elements are equals
+		 */
+		boolean equals(int a, int b);
+	}
+
+	/**
+	 * write a segment
+	 */
+	public interface Segment {
+		/**
+		 * @param off   first element
+		 * @param count number of element
+		 * @param run   true if all the elements are equals
+		 * @throws IOException on IOException
+		 */
+		void write(int off, int count, boolean run) throws IOException;
+	}
+
+	/**
+	 * split len elements in runs of at least minRun equals elements and literals
+	 * 
+	 * @param len    number of element
+	 * @param minRun min run length
+	 * @param eq     element comparator
+	 * @param seg    segment writer
+	 * @throws IOException on IOException
+	 */
+	public static void segments(int len, int minRun, Equals eq, Segment seg) throws IOException {
+		int i = 0;
+		while (i < len) {
+			int j = i + 1;
+			while (j < len && eq.equals(i, j))
+				j++;
+			if (j - i >= minRun) {
+				seg.write(i, j - i, true);
+				i = j;
+				continue;
+			}
+			// literal until a run starts
+			int k = j;
+			while (k < len) {
+				int r = k + 1;
+				while (r < len && r - k < minRun && eq.equals(k, r))
+					r++;
+				if (r - k >= minRun)
+					break;
+				k = r;
+			}
+			seg.write(i, k - i, false);
+			i = k;
+		}
+	}
+
+	/**
+	 * write a segment header
+	 * 
+	 * @param out   the output
+	 * @param count number of element
+	 * @param run   true for a run
+	 * @throws IOException on IOException
+	 */
+	public static void header(OutputStream out, int count, boolean run) throws IOException {
+		IoUtils.write(out, count << 1 | (run ? 1 : 0));
+	}
+
+	/**
+	 * read a segment header
+	 * 
+	 * @param in     the input
+	 * @param remain number of element left
+	 * @return the header
+	 * @throws IOException on IOException or invalid header
+	 */
+	public static int header(InputStream in, int remain) throws IOException {
+		int h = IoUtils.readInt(in);
+		int n = h >>> 1;
+		if (n == 0 || n > remain)
+			throw new IOException("corrupt stream (invalid segment)");
+		return h;
+	}
+
+	/**
+	 * write an object array
+	 * 
+	 * @param format the format
+	 * @param a      the array
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void write(BinaryFormat format, Object[] a, OutputStream out) throws IOException {
+		IoUtils.write(out, a.length);
+		segments(a.length, MIN_RUN, (x, y) -> Objects.equals(a[x], a[y]), (off, count, run) -> {
+			header(out, count, run);
+			if (run)
+				format.write(a[off], out);
+			else {
+				for (int i = 0; i < count; i++)
+					format.write(a[off + i], out);
+			}
+		});
+	}
+
+	/**
+	 * write a collection
+	 * 
+	 * @param format the format
+	 * @param c      the collection
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void write(BinaryFormat format, Collection<?> c, OutputStream out) throws IOException {
+		write(format, c.toArray(), out);
+	}
+
+	/**
+	 * read the elements
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param type   the element type
+	 * @return the elements
+	 * @throws IOException on IOException
+	 */
+	public static Object[] read(BinaryFormat format, InputStream in, Class<?> type) throws IOException {
+		int len = IoUtils.readInt(in);
+		Object[] a = (Object[]) Array.newInstance(type, len);
+		int i = 0;
+		while (i < len) {
+			int h = header(in, len - i);
+			int n = h >>> 1;
+			if ((h & 1) != 0) {
+				Object o = format.read(in);
+				if (o != null && !type.isInstance(o))
+					throw new IOException("object not a " + type.getName());
+				Arrays.fill(a, i, i + n, o);
+			} else {
+				for (int j = 0; j < n; j++) {
+					Object o = format.read(in);
+					if (o != null && !type.isInstance(o))
+						throw new IOException("object not a " + type.getName());
+					a[i + j] = o;
+				}
+			}
+			i += n;
+		}
+		return a;
+	}
+
+	/**
+	 * skip the elements
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @throws IOException on IOException
+	 */
+	public static void skip(BinaryFormat format, InputStream in) throws IOException {
+		int len = IoUtils.readInt(in);
+		int i = 0;
+		while (i < len) {
+			int h = header(in, len - i);
+			int n = h >>> 1;
+			for (int j = (h & 1) != 0 ? 1 : n; j > 0; j--)
+				format.skip(in);
+			i += n;
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import unknow.serialize.Codec;
+
+/**
+ * object array and collection written as [len] then runs of [count][id] followed by count payloads without their id, the
+ * codec is resolved once per run. A run of id 0 is count null elements, see {@link CodecBuilder#ARRAY} and
+ * {@link CodecBuilder#COLLECTION}
+ * 
+ * @author unknow
+ */
+public class Runs {
+	private Runs() {
+	}
+
+	/**
+	 * implemented by the generated codecs of the classes written with runs, the only ones
+	 * {@link BinaryFormat#readStream(InputStream, Class)} can stream
+	 */
+	public interface Encoded {
+	}
+
+	/**
+	 * write an object array
+	 * 
+	 * @param format the format
+	 * @param a      the array
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void write(BinaryFormat format, Object[] a, OutputStream out) throws IOException {
+		IoUtils.write(out, a.length);
+		int i = 0;
+		while (i < a.length) {
+			Class<?> cl = a[i] == null ? null : a[i].getClass();
+			int j = i + 1;
+			if (cl == null) {
+				while (j < a.length && a[j] == null)
+					j++;
+			} else {
+				while (j < a.length && a[j] != null && a[j].getClass() == cl)
+					j++;
+			}
+			IoUtils.write(out, j - i);
+			Codec codec = writeId(format, cl, out);
+			for (int k = i; codec != null && k < j; k++)
+				codec.write(format, a[k], out);
+			i = j;
+		}
+	}
+
+	/**
+	 * write a collection
+	 * 
+	 * @param format the format
+	 * @param c      the collection
+	 * @param out    the output
+	 * @throws IOException on IOException
+	 */
+	public static void write(BinaryFormat format, Collection<?> c, OutputStream out) throws IOException {
+		// the runs are found in the single walk of the snapshot array
+		write(format, c.toArray(), out);
+	}
+
+	/**
+	 * write the id of a run
+	 * 
+	 * @param format the format
+	 * @param cl     the class of the run, null for a run of null
+	 * @param out    the output
+	 * @return the codec of the run or null
+	 * @throws IOException if the class isn't registered
+	 */
+	private static Codec writeId(BinaryFormat format, Class<?> cl, OutputStream out) throws IOException {
+		if (cl == null) {
+			out.write(0);
+			return null;
+		}
+		int id = format.id(cl);
+		if (id == 0)
+			throw new IOException(cl + " isn't registered");
+		IoUtils.write(out, id);
+		return format.codec(id);
+	}
+
+	/**
+	 * read the elements
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param type   the element type
+	 * @return the elements
+	 * @throws IOException on IOException
+	 */
+	public static Object[] read(BinaryFormat format, InputStream in, Class<?> type) throws IOException {
+		int len = IoUtils.readInt(in);
+		if (len < 0)
+			throw new IOException("corrupt stream (invalid length)");
+		Object[] a = (Object[]) Array.newInstance(type, len);
+		int i = 0;
+		while (i < len) {
+			int n = count(in, len - i);
+			int id = IoUtils.readInt(in);
+			if (id != 0) {
+				Codec codec = codec(format, id);
+				for (int k = i; k < i + n; k++) {
+					Object o = codec.read(format, in);
+					if (!type.isInstance(o))
+						throw new IOException("object not a " + type.getName());
+					a[k] = o;
+				}
+			}
+			i += n;
+		}
+		return a;
+	}
+
+	/**
+	 * read the elements directly in a collection
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @param c      the collection to fill
+	 * @throws IOException on IOException
+	 */
+	public static void read(BinaryFormat format, InputStream in, Collection<Object> c) throws IOException {
+		int len = IoUtils.readInt(in);
+		if (len < 0)
+			throw new IOException("corrupt stream (invalid length)");
+		if (c instanceof ArrayList)
+			((ArrayList<Object>) c).ensureCapacity(Math.min(len, 1024));
+		int i = 0;
+		while (i < len) {
+			int n = count(in, len - i);
+			int id = IoUtils.readInt(in);
+			Codec codec = id == 0 ? null : codec(format, id);
+			for (int k = 0; k < n; k++)
+				c.add(codec == null ? null : codec.read(format, in));
+			i += n;
+		}
+	}
+
+	/**
+	 * skip the elements
+	 * 
+	 * @param format the format
+	 * @param in     the input
+	 * @throws IOException on IOException
+	 */
+	public static void skip(BinaryFormat format, InputStream in) throws IOException {
+		int len = IoUtils.readInt(in);
+		while (len > 0) {
+			int n = count(in, len);
+			int id = IoUtils.readInt(in);
+			if (id != 0) {
+				Codec codec = codec(format, id);
+				for (int k = 0; k < n; k++)
+					codec.skip(format, in);
+			}
+			len -= n;
+		}
+	}
+
+	/**
+	 * read a run header count
+	 * 
+	 * @param in     the input
+	 * @param remain number of element left
+	 * @return the run length
+	 * @throws IOException on IOException or invalid count
+	 */
+	static int count(InputStream in, int remain) throws IOException {
+		int n = IoUtils.readInt(in);
+		if (n <= 0 || n > remain)
+			throw new IOException("corrupt stream (invalid run)");
+		return n;
+	}
+
+	/**
+	 * @param format the format
+	 * @param id     the run id
+	 * @return the codec
+	 * @throws IOException if the id isn't registered
+	 */
+	static Codec codec(BinaryFormat format, int id) throws IOException {
+		try {
+			return format.codec(id);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("corrupt stream (invalid object id)", e);
+		}
+	}
+}
@@ -0,0 +1,369 @@
+package unknow.serialize.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import unknow.serialize.Codec;
+
+/**
+ * flyweight accessor over an encoded object, the fields are decoded on access and their offsets are computed lazily (or
+ * read from the record for fixed layout). A view can be rewrapped to avoid allocation, see
+ * {@link BinaryFormatBuilder#view(Class)}
+ * 
+ * @author unknow
+ */
+public final class View {
+	private final Class<?> cl;
+	private final int id;
+	/** name to field index */
+	private final Map<String, Integer> index = new HashMap<>();
+	private final Class<?>[] types;
+	/** type arguments of the typed collection and map fields, see {@link Generic} */
+	private final Generic.TypeArgs[] args;
+	/** bit in the boolean bundle or -1 */
+	private final int[] bits;
+	/** index in offsets for the non bundled fields */
+	private final int[] slots;
+	/** type of the non bundled fields in stream order */
+	private final Class<?>[] stream;
+	/** type arguments of the non bundled fields in stream order */
+	private final Generic.TypeArgs[] streamArgs;
+	/** element codecs of the typed fields resolved in the format, key and value by stream slot */
+	private final Codec[] codecs;
+	/** size of the boolean bundle */
+	private final int bundle;
+	/** offset of the fields in a fixed layout record or null */
+	private final int[] fixed;
+
+	private final ByteBufferInputStream in = new ByteBufferInputStream(null);
+	private final int[] offsets;
+	private int resolved;
+
+	private BinaryFormat format;
+	private ByteBuffer src;
+	private ByteBuffer buf;
+	private int offset;
+	/** position after the object id */
+	private int start;
+
+	/**
+	 * create a new View
+	 * 
+	 * @param cl     the class
+	 * @param id     id of the class in the format
+	 * @param names  name of the fields
+	 * @param types  type of the fields
+	 * @param args   type arguments of the typed fields (null for untyped field or fixed layout)
+	 * @param bits   bit in the bundle for the boolean fields or -1 for field in stream order
+	 * @param bundle the bundle size
+	 * @param fixed  offset of the fields in a fixed layout record or null
+	 */
+	View(Class<?> cl, int id, String[] names, Class<?>[] types, Generic.TypeArgs[] args, int[] bits, int bundle, int[] fixed) {
+		this.cl = cl;
+		this.id = id;
+		this.types = types;
+		this.args = args == null ? new Generic.TypeArgs[names.length] : args;
+		this.bits = bits;
+		this.bundle = bundle;
+		this.fixed = fixed;
+		this.slots = new int[names.length];
+		int s = 0;
+		for (int i = 0; i < names.length; i++) {
+			index.put(names[i], i);
+			slots[i] = bits[i] < 0 ? s++ : -1;
+		}
+		this.stream = new Class<?>[s];
+		this.streamArgs = new Generic.TypeArgs[s];
+		for (int i = 0; i < names.length; i++) {
+			if (slots[i] >= 0) {
+				stream[slots[i]] = types[i];
+				streamArgs[slots[i]] = this.args[i];
+			}
+		}
+		this.codecs = new Codec[s * 2];
+		this.offsets = new int[s + 1];
+	}
+
+	/**
+	 * wrap an object written by {@link BinaryFormat#write(Object, java.io.OutputStream)}
+	 * 
+	 * @param format the format used to write the object
+	 * @param buffer the buffer containing the object
+	 * @param offset the offset of the object in the buffer
+	 * @return this
+	 * @throws IOException if the object isn't of the view class
+	 */
+	public View wrap(BinaryFormat format, ByteBuffer buffer, int offset) throws IOException {
+		if (buffer != src) {
+			src = buffer;
+			buf = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			in.buffer(buf);
+		}
+		buf.limit(src.limit());
+		buf.position(offset);
+		if (format != this.format) {
+			Arrays.fill(codecs, null);
+			this.format = format;
+		}
+		this.offset = offset;
+		int i = IoUtils.readInt(in);
+		if (i != id)
+			throw new IOException(i == 0 ? "null object" : "object not a " + cl.getName());
+		start = buf.position();
+		offsets[0] = start + bundle;
+		resolved = 1;
+		return this;
+	}
+
+	/**
+	 * wrap an object written by {@link BinaryFormat#write(Object, java.io.OutputStream)}
+	 * 
+	 * @param format the format used to write the object
+	 * @param b      the array containing the object
+	 * @param offset the offset of the object in the array
+	 * @return this
+	 * @throws IOException if the object isn't of the view class
+	 */
+	public View wrap(BinaryFormat format, byte[] b, int offset) throws IOException {
+		ByteBuffer buffer = src;
+		if (buffer == null || !buffer.hasArray() || buffer.array() != b || buffer.arrayOffset() != 0)
+			buffer = ByteBuffer.wrap(b);
+		return wrap(format, buffer, offset);
+	}
+
+	/**
+	 * @return the size of the encoded object
+	 * @throws IOException on corrupted object
+	 */
+	public int length() throws IOException {
+		if (fixed != null)
+			return start - offset + buf.getInt(start);
+		seek(stream.length);
+		return buf.position() - offset;
+	}
+
+	/**
+	 * @param name the field name
+	 * @return the field value
+	 * @throws IOException on corrupted object
+	 */
+	public boolean getBoolean(String name) throws IOException {
+		return (bundled(field(name, boolean.class)) & 1) != 0;
+	}
+
+	/**
+	 * @param name the field name
+	 * @return the field value
+	 * @throws IOException on corrupted object
+	 */
+	public byte getByte(String name) throws IOException {
+		return readByte(field(name, byte.class));
+	}
+
+	/**
+	 * @param name the field name
+	 * @return the field value
+	 * @throws IOException on corrupted object
+	 */
+	public char getChar(String name) throws IOException {
+		return readChar(field(name, char.class));
+	}
+
+	/**
+	 * @param name the field name
+	 * @return the field value
+	 * @throws IOException on corrupted object
+	 */
+	public short getShort(String name) throws IOException {
+		return readShort(field(name, short.class));
+	}
+
+	/**
+	 * @param name the field name
+	 * @return the field value
+	 * @throws IOException on corrupted object
+	 */
+	public int getInt(String name) throws IOException {
+		return readInt(field(name, int.class));
+	}
+
+	/**
+	 * @param name the field name
+	 * @return the field value
+	 * @throws IOException on corrupted object
+	 */
+	public long getLong(String name) throws IOException {
+		return readLong(field(name, long.class));
+	}
+
+	/**
+	 * @param name the field name
+	 * @return the field value
+	 * @throws IOException on corrupted object
+	 */
+	public float getFloat(String name) throws IOException {
+		return readFloat(field(name, float.class));
+	}
+
+	/**
+	 * @param name the field name
+	 * @return the field value
+	 * @throws IOException on corrupted object
+	 */
+	public double getDouble(String name) throws IOException {
+		return readDouble(field(name, double.class));
+	}
+
+	/**
+	 * @param name the field name
+	 * @return the field value, primitive are boxed
+	 * @throws IOException on corrupted object
+	 */
+	public Object get(String name) throws IOException {
+		int i = field(name, null);
+		Class<?> type = types[i];
+		if (type == boolean.class)
+			return (bundled(i) & 1) != 0;
+		if (type == Boolean.class) {
+			switch (bundled(i) & 0b11) {
+				case 0b00:
+					return null;
+				case 0b10:
+					return Boolean.FALSE;
+				case 0b11:
+					return Boolean.TRUE;
+				default:
+					throw new IOException("corruped stream");
+			}
+		}
+		if (type == byte.class)
+			return readByte(i);
+		if (type == char.class)
+			return readChar(i);
+		if (type == short.class)
+			return readShort(i);
+		if (type == int.class)
+			return readInt(i);
+		if (type == long.class)
+			return readLong(i);
+		if (type == float.class)
+			return readFloat(i);
+		if (type == double.class)
+			return readDouble(i);
+		if (fixed != null) {
+			buf.position(start + buf.getInt(start + fixed[i]));
+			return format.read(in);
+		}
+		if (args[i] != null) {
+			int s = slots[i];
+			return Generic.read(format, seek(s), args[i], codec(s, 0), args[i].isMap() ? codec(s, 1) : null);
+		}
+		return format.read(seek(slots[i]));
+	}
+
+	private byte readByte(int i) throws IOException {
+		if (fixed != null)
+			return buf.get(start + fixed[i]);
+		return (byte) IoUtils.read(seek(slots[i]));
+	}
+
+	private char readChar(int i) throws IOException {
+		if (fixed != null)
+			return buf.getChar(start + fixed[i]);
+		return (char) IoUtils.readInt(seek(slots[i]));
+	}
+
+	private short readShort(int i) throws IOException {
+		if (fixed != null)
+			return buf.getShort(start + fixed[i]);
+		return (short) IoUtils.readInt(seek(slots[i]));
+	}
+
+	private int readInt(int i) throws IOException {
+		if (fixed != null)
+			return buf.getInt(start + fixed[i]);
+		return IoUtils.readInt(seek(slots[i]));
+	}
+
+	private long readLong(int i) throws IOException {
+		if (fixed != null)
+			return buf.getLong(start + fixed[i]);
+		return IoUtils.readLong(seek(slots[i]));
+	}
+
+	private float readFloat(int i) throws IOException {
+		if (fixed != null)
+			return buf.getFloat(start + fixed[i]);
+		return IoUtils.readFloat(seek(slots[i]));
+	}
+
+	private double readDouble(int i) throws IOException {
+		if (fixed != null)
+			return buf.getDouble(start + fixed[i]);
+		return IoUtils.readDouble(seek(slots[i]));
+	}
+
+	private int field(String name, Class<?> type) {
+		Integer i = index.get(name);
+		if (i == null)
+			throw new IllegalArgumentException("no field '" + name + "' in " + cl);
+		if (type != null && types[i] != type)
+			throw new IllegalArgumentException("field '" + name + "' isn't a " + type);
+		return i;
+	}
+
+	private int bundled(int i) {
+		if (fixed != null)
+			return buf.get(start + fixed[i]) & 0xFF;
+		int bit = bits[i];
+		return (buf.get(offsets[0] - bundle + bit / 8) & 0xFF) >>> (bit % 8);
+	}
+
+	/**
+	 * @param slot the stream slot of a typed field
+	 * @param k    0 for the element or key codec, 1 for the value codec
+	 * @return the codec resolved in the current format
+	 * @throws IOException if the class isn't registered
+	 */
+	private Codec codec(int slot, int k) throws IOException {
+		Codec c = codecs[slot * 2 + k];
+		if (c == null) {
+			Generic.TypeArgs a = streamArgs[slot];
+			c = codecs[slot * 2 + k] = Generic.codec(format, k == 0 ? a.key : a.value);
+		}
+		return c;
+	}
+
+	/**
+	 * position the stream at the start of a non bundled field
+	 * 
+	 * @param slot the field slot
+	 * @return the stream
+	 * @throws IOException on corrupted object
+	 */
+	private ByteBufferInputStream seek(int slot) throws IOException {
+		while (resolved <= slot) {
+			buf.position(offsets[resolved - 1]);
+			Class<?> type = stream[resolved - 1];
+			if (type == double.class)
+				IoUtils.skip(in, 8);
+			else if (type == float.class)
+				IoUtils.skip(in, 4);
+			else if (type == byte.class)
+				IoUtils.skip(in, 1);
+			else if (type.isPrimitive())
+				IoUtils.skipVarint(in);
+			else if (streamArgs[resolved - 1] != null)
+				Generic.skip(format, in, streamArgs[resolved - 1], codec(resolved - 1, 0), streamArgs[resolved - 1].isMap() ? codec(resolved - 1, 1) : null);
+			else
+				format.skip(in);
+			offsets[resolved++] = buf.position();
+		}
+		buf.position(offsets[slot]);
+		return in;
+	}
+}
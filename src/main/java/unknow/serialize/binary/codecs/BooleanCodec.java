@@ -3,10 +3,14 @@ package unknow.serialize.binary.codecs;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 import unknow.serialize.Codec;
 import unknow.serialize.binary.BinaryFormat;
+import unknow.serialize.binary.BitReader;
+import unknow.serialize.binary.BitWriter;
 import unknow.serialize.binary.IoUtils;
+import unknow.serialize.binary.Rle;
 
 /**
  * java.lang.Byte codec
@@ -27,6 +31,11 @@ public class BooleanCodec implements Codec {
 		return IoUtils.read(in) != 0;
 	}
 
+	@Override
+	public void skip(BinaryFormat format, InputStream in) throws IOException {
+		IoUtils.read(in);
+	}
+
 	/**
 	 * boolean[] codec
 	 * 
@@ -80,6 +89,12 @@ public class BooleanCodec implements Codec {
 			}
 			return a;
 		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			IoUtils.skip(in, (len + 7) / 8);
+		}
 	}
 
 	/**
@@ -145,5 +160,71 @@ public class BooleanCodec implements Codec {
 			}
 			return a;
 		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			IoUtils.skip(in, (len + 3) / 4);
+		}
+	}
+
+	/**
+	 * boolean[] codec with adaptive run length encoding, literal segments are bit packed, see {@link Rle}. Enabled with
+	 * {@code register(boolean[].class, BooleanCodec.RleArray.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class RleArray implements Codec {
+		private static final int MIN_RUN = 32;
+
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			boolean[] a = (boolean[]) o;
+			IoUtils.write(out, a.length);
+			BitWriter w = new BitWriter(out);
+			Rle.segments(a.length, MIN_RUN, (x, y) -> a[x] == a[y], (off, count, run) -> {
+				Rle.header(out, count, run);
+				if (run)
+					out.write(a[off] ? 1 : 0);
+				else {
+					for (int i = 0; i < count; i++)
+						w.write(a[off + i]);
+					w.flush();
+				}
+			});
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			boolean[] a = new boolean[len];
+			BitReader r = new BitReader(in);
+			int i = 0;
+			while (i < len) {
+				int h = Rle.header(in, len - i);
+				int n = h >>> 1;
+				if ((h & 1) != 0)
+					Arrays.fill(a, i, i + n, IoUtils.read(in) != 0);
+				else {
+					for (int j = 0; j < n; j++)
+						a[i + j] = r.readBit();
+					r.align();
+				}
+				i += n;
+			}
+			return a;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			int i = 0;
+			while (i < len) {
+				int h = Rle.header(in, len - i);
+				int n = h >>> 1;
+				IoUtils.skip(in, (h & 1) != 0 ? 1 : (n + 7) / 8);
+				i += n;
+			}
+		}
 	}
-}
\ No newline at end of file
+}
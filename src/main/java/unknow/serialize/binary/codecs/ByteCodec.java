@@ -3,10 +3,12 @@ package unknow.serialize.binary.codecs;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 import unknow.serialize.Codec;
 import unknow.serialize.binary.BinaryFormat;
 import unknow.serialize.binary.IoUtils;
+import unknow.serialize.binary.Rle;
 
 /**
  * java.lang.Byte codec
@@ -24,6 +26,11 @@ public class ByteCodec implements Codec {
 		return (byte) in.read();
 	}
 
+	@Override
+	public void skip(BinaryFormat format, InputStream in) throws IOException {
+		IoUtils.read(in);
+	}
+
 	/**
 	 * byte[] codec
 	 * 
@@ -44,5 +51,65 @@ public class ByteCodec implements Codec {
 			IoUtils.fill(in, b);
 			return b;
 		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			IoUtils.skip(in, IoUtils.readInt(in));
+		}
+	}
+
+	/**
+	 * byte[] codec with adaptive run length encoding, see {@link Rle}. Enabled with
+	 * {@code register(byte[].class, ByteCodec.RleArray.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class RleArray implements Codec {
+		private static final int MIN_RUN = 3;
+
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			byte[] a = (byte[]) o;
+			IoUtils.write(out, a.length);
+			Rle.segments(a.length, MIN_RUN, (x, y) -> a[x] == a[y], (off, count, run) -> {
+				Rle.header(out, count, run);
+				out.write(a, off, run ? 1 : count);
+			});
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			byte[] a = new byte[len];
+			int i = 0;
+			while (i < len) {
+				int h = Rle.header(in, len - i);
+				int n = h >>> 1;
+				if ((h & 1) != 0)
+					Arrays.fill(a, i, i + n, (byte) IoUtils.read(in));
+				else {
+					for (int j = 0; j < n;) {
+						int l = in.read(a, i + j, n - j);
+						if (l == -1)
+							throw new IOException("end of stream reached");
+						j += l;
+					}
+				}
+				i += n;
+			}
+			return a;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			int i = 0;
+			while (i < len) {
+				int h = Rle.header(in, len - i);
+				int n = h >>> 1;
+				IoUtils.skip(in, (h & 1) != 0 ? 1 : n);
+				i += n;
+			}
+		}
 	}
-}
\ No newline at end of file
+}
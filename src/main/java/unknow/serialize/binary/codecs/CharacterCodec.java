@@ -24,6 +24,11 @@ public class CharacterCodec implements Codec {
 		return (char) IoUtils.readInt(in);
 	}
 
+	@Override
+	public void skip(BinaryFormat format, InputStream in) throws IOException {
+		IoUtils.skipVarint(in);
+	}
+
 	/**
 	 * char[] codec
 	 * 
@@ -46,5 +51,12 @@ public class CharacterCodec implements Codec {
 				b[i] = (char) IoUtils.readInt(in);
 			return b;
 		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			for (int i = 0; i < len; i++)
+				IoUtils.skipVarint(in);
+		}
 	}
 }
\ No newline at end of file
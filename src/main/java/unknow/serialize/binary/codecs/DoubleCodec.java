@@ -6,6 +6,9 @@ import java.io.OutputStream;
 
 import unknow.serialize.Codec;
 import unknow.serialize.binary.BinaryFormat;
+import unknow.serialize.binary.BitReader;
+import unknow.serialize.binary.BitWriter;
+import unknow.serialize.binary.Gorilla;
 import unknow.serialize.binary.IoUtils;
 
 /**
@@ -24,6 +27,11 @@ public class DoubleCodec implements Codec {
 		return IoUtils.readDouble(in);
 	}
 
+	@Override
+	public void skip(BinaryFormat format, InputStream in) throws IOException {
+		IoUtils.skip(in, 8);
+	}
+
 	/**
 	 * double[] codec
 	 * 
@@ -46,5 +54,49 @@ public class DoubleCodec implements Codec {
 				b[i] = IoUtils.readDouble(in);
 			return b;
 		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			IoUtils.skip(in, 8L * IoUtils.readInt(in));
+		}
+	}
+
+	/**
+	 * double[] codec xoring each value with the previous one and writing only the meaningful bits, efficient on slowly
+	 * changing series, see {@link Gorilla}. Enabled with {@code register(double[].class, DoubleCodec.XorArray.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class XorArray implements Codec {
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			double[] b = (double[]) o;
+			IoUtils.write(out, b.length);
+			Gorilla g = new Gorilla(64);
+			BitWriter w = new BitWriter(out);
+			for (int i = 0; i < b.length; i++)
+				g.write(w, Double.doubleToRawLongBits(b[i]));
+			w.flush();
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			double[] b = new double[len];
+			Gorilla g = new Gorilla(64);
+			BitReader r = new BitReader(in);
+			for (int i = 0; i < len; i++)
+				b[i] = Double.longBitsToDouble(g.read(r));
+			return b;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			Gorilla g = new Gorilla(64);
+			BitReader r = new BitReader(in);
+			for (int i = 0; i < len; i++)
+				g.read(r);
+		}
 	}
 }
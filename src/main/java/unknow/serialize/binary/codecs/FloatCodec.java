@@ -6,6 +6,9 @@ import java.io.OutputStream;
 
 import unknow.serialize.Codec;
 import unknow.serialize.binary.BinaryFormat;
+import unknow.serialize.binary.BitReader;
+import unknow.serialize.binary.BitWriter;
+import unknow.serialize.binary.Gorilla;
 import unknow.serialize.binary.IoUtils;
 
 /**
@@ -24,6 +27,11 @@ public class FloatCodec implements Codec {
 		return IoUtils.readFloat(in);
 	}
 
+	@Override
+	public void skip(BinaryFormat format, InputStream in) throws IOException {
+		IoUtils.skip(in, 4);
+	}
+
 	/**
 	 * float[] codec
 	 * 
@@ -47,5 +55,49 @@ public class FloatCodec implements Codec {
 				b[i] = IoUtils.readFloat(in);
 			return b;
 		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			IoUtils.skip(in, 4L * IoUtils.readInt(in));
+		}
+	}
+
+	/**
+	 * float[] codec xoring each value with the previous one and writing only the meaningful bits, efficient on slowly
+	 * changing series, see {@link Gorilla}. Enabled with {@code register(float[].class, FloatCodec.XorArray.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class XorArray implements Codec {
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			float[] b = (float[]) o;
+			IoUtils.write(out, b.length);
+			Gorilla g = new Gorilla(32);
+			BitWriter w = new BitWriter(out);
+			for (int i = 0; i < b.length; i++)
+				g.write(w, Float.floatToRawIntBits(b[i]) & 0xFFFFFFFFL);
+			w.flush();
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			float[] b = new float[len];
+			Gorilla g = new Gorilla(32);
+			BitReader r = new BitReader(in);
+			for (int i = 0; i < len; i++)
+				b[i] = Float.intBitsToFloat((int) g.read(r));
+			return b;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			Gorilla g = new Gorilla(32);
+			BitReader r = new BitReader(in);
+			for (int i = 0; i < len; i++)
+				g.read(r);
+		}
 	}
 }
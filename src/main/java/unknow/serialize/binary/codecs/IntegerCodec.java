@@ -3,10 +3,13 @@ package unknow.serialize.binary.codecs;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 import unknow.serialize.Codec;
 import unknow.serialize.binary.BinaryFormat;
 import unknow.serialize.binary.IoUtils;
+import unknow.serialize.binary.Pfor;
+import unknow.serialize.binary.Rle;
 
 /**
  * java.lang.Integer codec
@@ -24,6 +27,11 @@ public class IntegerCodec implements Codec {
 		return IoUtils.readInt(in);
 	}
 
+	@Override
+	public void skip(BinaryFormat format, InputStream in) throws IOException {
+		IoUtils.skipVarint(in);
+	}
+
 	/**
 	 * int[] codec
 	 * 
@@ -46,5 +54,218 @@ public class IntegerCodec implements Codec {
 				b[i] = IoUtils.readInt(in);
 			return b;
 		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			for (int i = 0; i < len; i++)
+				IoUtils.skipVarint(in);
+		}
+	}
+
+	/**
+	 * int[] codec writing the zigzag varint of the difference with the previous element, efficient on sorted arrays.
+	 * Enabled with {@code register(int[].class, IntegerCodec.DeltaArray.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class DeltaArray implements Codec {
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			int[] b = (int[]) o;
+			IoUtils.write(out, b.length);
+			int prev = 0;
+			for (int i = 0; i < b.length; i++) {
+				IoUtils.write(out, IoUtils.zigzag(b[i] - prev));
+				prev = b[i];
+			}
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			int[] b = new int[len];
+			int prev = 0;
+			for (int i = 0; i < len; i++)
+				b[i] = prev += IoUtils.unzigzag(IoUtils.readInt(in));
+			return b;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			for (int i = 0; i < len; i++)
+				IoUtils.skipVarint(in);
+		}
+	}
+
+	/**
+	 * int[] codec in stream vbyte layout: [length][control bytes][data bytes], each control byte holds the byte length
+	 * (1-4) of the next 4 values stored little endian in the data bytes, a group is decoded with a table lookup and
+	 * masked loads. Enabled with {@code register(int[].class, IntegerCodec.StreamVByte.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class StreamVByte implements Codec {
+		private static final int[] MASK = { 0xFF, 0xFFFF, 0xFFFFFF, 0xFFFFFFFF };
+		/** data length of the group for each control byte */
+		private static final int[] TOTAL = new int[256];
+
+		static {
+			for (int c = 0; c < 256; c++)
+				TOTAL[c] = (c & 3) + (c >> 2 & 3) + (c >> 4 & 3) + (c >> 6 & 3) + 4;
+		}
+
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			int[] b = (int[]) o;
+			IoUtils.write(out, b.length);
+			byte[] control = new byte[(b.length + 3) / 4];
+			byte[] data = new byte[b.length * 4];
+			int d = 0;
+			for (int i = 0; i < b.length; i++) {
+				int v = b[i];
+				int l = (39 - Integer.numberOfLeadingZeros(v | 1)) >> 3;
+				control[i >> 2] |= (l - 1) << ((i & 3) << 1);
+				for (int j = 0; j < l; j++)
+					data[d++] = (byte) (v >>> (j << 3));
+			}
+			out.write(control);
+			out.write(data, 0, d);
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			byte[] control = new byte[(len + 3) / 4];
+			IoUtils.fill(in, control);
+			int l = dataLength(control, len);
+			// padded for the masked 4 bytes loads
+			byte[] data = new byte[l + 3];
+			IoUtils.fill(in, data, 0, l);
+
+			int[] b = new int[len];
+			int d = 0;
+			for (int i = 0; i < len; i++) {
+				int c = control[i >> 2] >> ((i & 3) << 1) & 3;
+				b[i] = ((data[d] & 0xFF) | (data[d + 1] & 0xFF) << 8 | (data[d + 2] & 0xFF) << 16 | data[d + 3] << 24) & MASK[c];
+				d += c + 1;
+			}
+			return b;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			byte[] control = new byte[(len + 3) / 4];
+			IoUtils.fill(in, control);
+			IoUtils.skip(in, dataLength(control, len));
+		}
+
+		private static int dataLength(byte[] control, int len) {
+			int l = 0;
+			for (int i = 0; i < control.length; i++)
+				l += TOTAL[control[i] & 0xFF];
+			// unused slots of the last group are coded as 1 byte
+			int r = len & 3;
+			if (r != 0)
+				l -= 4 - r;
+			return l;
+		}
+	}
+
+	/**
+	 * int[] codec bit packing blocks of {@link Pfor#BLOCK} values relative to their min, see {@link Pfor}. Enabled with
+	 * {@code register(int[].class, IntegerCodec.PforArray.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class PforArray implements Codec {
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			int[] b = (int[]) o;
+			IoUtils.write(out, b.length);
+			long[] block = new long[Pfor.BLOCK];
+			for (int i = 0; i < b.length; i += Pfor.BLOCK) {
+				int n = Math.min(Pfor.BLOCK, b.length - i);
+				for (int j = 0; j < n; j++)
+					block[j] = b[i + j];
+				Pfor.write(out, block, n);
+			}
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			int[] b = new int[len];
+			long[] block = new long[Pfor.BLOCK];
+			for (int i = 0; i < len; i += Pfor.BLOCK) {
+				int n = Math.min(Pfor.BLOCK, len - i);
+				Pfor.read(in, block, n);
+				for (int j = 0; j < n; j++)
+					b[i + j] = (int) block[j];
+			}
+			return b;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			for (int i = 0; i < len; i += Pfor.BLOCK)
+				Pfor.skip(in, Math.min(Pfor.BLOCK, len - i));
+		}
+	}
+
+	/**
+	 * int[] codec with adaptive run length encoding, see {@link Rle}. Enabled with
+	 * {@code register(int[].class, IntegerCodec.RleArray.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class RleArray implements Codec {
+		private static final int MIN_RUN = 3;
+
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			int[] a = (int[]) o;
+			IoUtils.write(out, a.length);
+			Rle.segments(a.length, MIN_RUN, (x, y) -> a[x] == a[y], (off, count, run) -> {
+				Rle.header(out, count, run);
+				for (int i = run ? 1 : count; i > 0; i--)
+					IoUtils.write(out, a[off++]);
+			});
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			int[] a = new int[len];
+			int i = 0;
+			while (i < len) {
+				int h = Rle.header(in, len - i);
+				int n = h >>> 1;
+				if ((h & 1) != 0)
+					Arrays.fill(a, i, i + n, IoUtils.readInt(in));
+				else {
+					for (int j = 0; j < n; j++)
+						a[i + j] = IoUtils.readInt(in);
+				}
+				i += n;
+			}
+			return a;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			int i = 0;
+			while (i < len) {
+				int h = Rle.header(in, len - i);
+				int n = h >>> 1;
+				for (int j = (h & 1) != 0 ? 1 : n; j > 0; j--)
+					IoUtils.skipVarint(in);
+				i += n;
+			}
+		}
 	}
-}
\ No newline at end of file
+}
@@ -7,6 +7,7 @@ import java.io.OutputStream;
 import unknow.serialize.Codec;
 import unknow.serialize.binary.BinaryFormat;
 import unknow.serialize.binary.IoUtils;
+import unknow.serialize.binary.Pfor;
 
 /**
  * java.lang.Long codec
@@ -24,6 +25,11 @@ public class LongCodec implements Codec {
 		return IoUtils.readLong(in);
 	}
 
+	@Override
+	public void skip(BinaryFormat format, InputStream in) throws IOException {
+		IoUtils.skipVarint(in);
+	}
+
 	/**
 	 * long[] codec
 	 * 
@@ -46,5 +52,164 @@ public class LongCodec implements Codec {
 				b[i] = IoUtils.readLong(in);
 			return b;
 		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			for (int i = 0; i < len; i++)
+				IoUtils.skipVarint(in);
+		}
+	}
+
+	/**
+	 * long[] codec writing the zigzag varint of the difference with the previous element, efficient on sorted arrays.
+	 * Enabled with {@code register(long[].class, LongCodec.DeltaArray.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class DeltaArray implements Codec {
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			long[] b = (long[]) o;
+			IoUtils.write(out, b.length);
+			long prev = 0;
+			for (int i = 0; i < b.length; i++) {
+				IoUtils.write(out, IoUtils.zigzag(b[i] - prev));
+				prev = b[i];
+			}
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			long[] b = new long[len];
+			long prev = 0;
+			for (int i = 0; i < len; i++)
+				b[i] = prev += IoUtils.unzigzag(IoUtils.readLong(in));
+			return b;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			for (int i = 0; i < len; i++)
+				IoUtils.skipVarint(in);
+		}
+	}
+
+	/**
+	 * long[] codec in stream vbyte layout: [length][control bytes][data bytes], each control byte holds the byte length
+	 * (1-8) of the next 2 values stored little endian in the data bytes. Enabled with
+	 * {@code register(long[].class, LongCodec.StreamVByte.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class StreamVByte implements Codec {
+		private static final long[] MASK = new long[8];
+
+		static {
+			for (int i = 0; i < 8; i++)
+				MASK[i] = i == 7 ? -1L : (1L << ((i + 1) << 3)) - 1;
+		}
+
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			long[] b = (long[]) o;
+			IoUtils.write(out, b.length);
+			byte[] control = new byte[(b.length + 1) / 2];
+			byte[] data = new byte[b.length * 8];
+			int d = 0;
+			for (int i = 0; i < b.length; i++) {
+				long v = b[i];
+				int l = (71 - Long.numberOfLeadingZeros(v | 1)) >> 3;
+				control[i >> 1] |= (l - 1) << ((i & 1) << 2);
+				for (int j = 0; j < l; j++)
+					data[d++] = (byte) (v >>> (j << 3));
+			}
+			out.write(control);
+			out.write(data, 0, d);
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			byte[] control = new byte[(len + 1) / 2];
+			IoUtils.fill(in, control);
+			int l = dataLength(control, len);
+			// padded for the masked 8 bytes loads
+			byte[] data = new byte[l + 7];
+			IoUtils.fill(in, data, 0, l);
+
+			long[] b = new long[len];
+			int d = 0;
+			for (int i = 0; i < len; i++) {
+				int c = control[i >> 1] >> ((i & 1) << 2) & 7;
+				long lo = (data[d] & 0xFF) | (data[d + 1] & 0xFF) << 8 | (data[d + 2] & 0xFF) << 16 | (data[d + 3] & 0xFFL) << 24;
+				long hi = (data[d + 4] & 0xFF) | (data[d + 5] & 0xFF) << 8 | (data[d + 6] & 0xFF) << 16 | (data[d + 7] & 0xFFL) << 24;
+				b[i] = (lo | hi << 32) & MASK[c];
+				d += c + 1;
+			}
+			return b;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			byte[] control = new byte[(len + 1) / 2];
+			IoUtils.fill(in, control);
+			IoUtils.skip(in, dataLength(control, len));
+		}
+
+		private static int dataLength(byte[] control, int len) {
+			int l = 0;
+			for (int i = 0; i < control.length; i++)
+				l += (control[i] & 7) + (control[i] >> 4 & 7) + 2;
+			// unused slot of the last group is coded as 1 byte
+			if ((len & 1) != 0)
+				l--;
+			return l;
+		}
+	}
+
+	/**
+	 * long[] codec bit packing blocks of {@link Pfor#BLOCK} values relative to their min, see {@link Pfor}. Enabled with
+	 * {@code register(long[].class, LongCodec.PforArray.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class PforArray implements Codec {
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			long[] b = (long[]) o;
+			IoUtils.write(out, b.length);
+			long[] block = new long[Pfor.BLOCK];
+			for (int i = 0; i < b.length; i += Pfor.BLOCK) {
+				int n = Math.min(Pfor.BLOCK, b.length - i);
+				for (int j = 0; j < n; j++)
+					block[j] = b[i + j];
+				Pfor.write(out, block, n);
+			}
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			long[] b = new long[len];
+			long[] block = new long[Pfor.BLOCK];
+			for (int i = 0; i < len; i += Pfor.BLOCK) {
+				int n = Math.min(Pfor.BLOCK, len - i);
+				Pfor.read(in, block, n);
+				for (int j = 0; j < n; j++)
+					b[i + j] = block[j];
+			}
+			return b;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			for (int i = 0; i < len; i += Pfor.BLOCK)
+				Pfor.skip(in, Math.min(Pfor.BLOCK, len - i));
+		}
 	}
-}
\ No newline at end of file
+}
@@ -7,6 +7,7 @@ import java.io.OutputStream;
 import unknow.serialize.Codec;
 import unknow.serialize.binary.BinaryFormat;
 import unknow.serialize.binary.IoUtils;
+import unknow.serialize.binary.Pfor;
 
 /**
  * java.lang.Short codec
@@ -24,6 +25,11 @@ public class ShortCodec implements Codec {
 		return (short) IoUtils.readInt(in);
 	}
 
+	@Override
+	public void skip(BinaryFormat format, InputStream in) throws IOException {
+		IoUtils.skipVarint(in);
+	}
+
 	/**
 	 * short[] codec
 	 * 
@@ -46,5 +52,54 @@ public class ShortCodec implements Codec {
 				b[i] = (short) IoUtils.readInt(in);
 			return b;
 		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			for (int i = 0; i < len; i++)
+				IoUtils.skipVarint(in);
+		}
+	}
+
+	/**
+	 * short[] codec bit packing blocks of {@link Pfor#BLOCK} values relative to their min, see {@link Pfor}. Enabled with
+	 * {@code register(short[].class, ShortCodec.PforArray.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class PforArray implements Codec {
+		@Override
+		public void write(BinaryFormat format, Object o, OutputStream out) throws IOException {
+			short[] b = (short[]) o;
+			IoUtils.write(out, b.length);
+			long[] block = new long[Pfor.BLOCK];
+			for (int i = 0; i < b.length; i += Pfor.BLOCK) {
+				int n = Math.min(Pfor.BLOCK, b.length - i);
+				for (int j = 0; j < n; j++)
+					block[j] = b[i + j];
+				Pfor.write(out, block, n);
+			}
+		}
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			short[] b = new short[len];
+			long[] block = new long[Pfor.BLOCK];
+			for (int i = 0; i < len; i += Pfor.BLOCK) {
+				int n = Math.min(Pfor.BLOCK, len - i);
+				Pfor.read(in, block, n);
+				for (int j = 0; j < n; j++)
+					b[i + j] = (short) block[j];
+			}
+			return b;
+		}
+
+		@Override
+		public void skip(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			for (int i = 0; i < len; i += Pfor.BLOCK)
+				Pfor.skip(in, Math.min(Pfor.BLOCK, len - i));
+		}
 	}
-}
\ No newline at end of file
+}
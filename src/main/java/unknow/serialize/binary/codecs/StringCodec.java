@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import unknow.serialize.Codec;
 import unknow.serialize.binary.BinaryFormat;
@@ -30,9 +31,75 @@ public class StringCodec implements Codec {
 
 	@Override
 	public Object read(BinaryFormat format, InputStream in) throws IOException {
+		return new String(IoUtils.readBytes(in, IoUtils.readInt(in)), StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void skip(BinaryFormat format, InputStream in) throws IOException {
 		int len = IoUtils.readInt(in);
-		byte[] b = new byte[len];
-		IoUtils.fill(in, b);
-		return new String(b, StandardCharsets.UTF_8);
+		if (len < 0)
+			throw new IOException("corrupt stream (invalid length)");
+		IoUtils.skip(in, len);
+	}
+
+	/**
+	 * String codec returning canonical instances for short strings, the strings are kept in a bounded direct mapped
+	 * table keyed on their utf-8 bytes, a hit doesn't allocate. Enabled with
+	 * {@code register(String.class, StringCodec.Interned.class)}
+	 * 
+	 * @author unknow
+	 */
+	public static class Interned extends StringCodec {
+		/** longer strings aren't interned */
+		public static final int MAX_LENGTH = 64;
+		private static final int SIZE = 4096;
+
+		private final Entry[] table = new Entry[SIZE];
+		private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[MAX_LENGTH]);
+
+		@Override
+		public Object read(BinaryFormat format, InputStream in) throws IOException {
+			int len = IoUtils.readInt(in);
+			if (len < 0)
+				throw new IOException("corrupt stream (invalid length)");
+			if (len > MAX_LENGTH)
+				return new String(IoUtils.readBytes(in, len), StandardCharsets.UTF_8);
+			byte[] b = scratch.get();
+			IoUtils.fill(in, b, 0, len);
+			int h = 1;
+			for (int i = 0; i < len; i++)
+				h = 31 * h + b[i];
+			h ^= h >>> 16;
+			int slot = h & (SIZE - 1);
+			Entry e = table[slot];
+			if (e != null && e.hash == h && e.matches(b, len))
+				return e.value;
+			String value = new String(b, 0, len, StandardCharsets.UTF_8);
+			table[slot] = new Entry(Arrays.copyOf(b, len), value, h);
+			return value;
+		}
+
+		/** immutable entry, safely published through its final fields */
+		private static final class Entry {
+			final byte[] bytes;
+			final String value;
+			final int hash;
+
+			Entry(byte[] bytes, String value, int hash) {
+				this.bytes = bytes;
+				this.value = value;
+				this.hash = hash;
+			}
+
+			boolean matches(byte[] b, int len) {
+				if (bytes.length != len)
+					return false;
+				for (int i = 0; i < len; i++) {
+					if (bytes[i] != b[i])
+						return false;
+				}
+				return true;
+			}
+		}
 	}
 }
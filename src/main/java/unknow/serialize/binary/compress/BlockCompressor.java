@@ -0,0 +1,42 @@
+package unknow.serialize.binary.compress;
+
+import java.io.IOException;
+
+/**
+ * compression algorithm for {@link BlockOutputStream}
+ * 
+ * @author unknow
+ */
+public interface BlockCompressor {
+	/**
+	 * @return the id written in the block header (0 is reserved for stored block)
+	 */
+	int id();
+
+	/**
+	 * @param len the raw length
+	 * @return the max size of the compressed data
+	 */
+	int maxCompressedLength(int len);
+
+	/**
+	 * compress a block
+	 * 
+	 * @param src the raw data
+	 * @param len the raw length
+	 * @param dst the destination, at least maxCompressedLength(len) long
+	 * @return the compressed length
+	 */
+	int compress(byte[] src, int len, byte[] dst);
+
+	/**
+	 * decompress a block
+	 * 
+	 * @param src the compressed data
+	 * @param len the compressed length
+	 * @param dst the destination
+	 * @param raw the raw length
+	 * @throws IOException on corrupted data
+	 */
+	void decompress(byte[] src, int len, byte[] dst, int raw) throws IOException;
+}
@@ -0,0 +1,265 @@
+package unknow.serialize.binary.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import unknow.serialize.binary.IoUtils;
+
+/**
+ * read the blocks written by {@link BlockOutputStream}, optionally decompressing a window of the next blocks in a
+ * ForkJoinPool while the current one is consumed. Blocks larger than the max block size are rejected as corrupt.
+ * 
+ * @author unknow
+ */
+public class BlockInputStream extends InputStream {
+	private final InputStream in;
+	private final BlockCompressor[] compressors = new BlockCompressor[256];
+	private final int maxBlockSize;
+	private final ForkJoinPool pool;
+	private final int window;
+	/** blocks read ahead, in stream order */
+	private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+	private byte[] block = new byte[0];
+	private byte[] buf = new byte[0];
+	private int pos;
+	private int limit;
+
+	/**
+	 * create a new BlockInputStream accepting blocks up to {@link BlockOutputStream#BLOCK_SIZE}
+	 * 
+	 * @param in          the input
+	 * @param compressors the compressors that can be found in the blocks
+	 */
+	public BlockInputStream(InputStream in, BlockCompressor... compressors) {
+		this(in, BlockOutputStream.BLOCK_SIZE, compressors);
+	}
+
+	/**
+	 * create a new BlockInputStream
+	 * 
+	 * @param in           the input
+	 * @param maxBlockSize the max raw size of a block, the block size of the writer
+	 * @param compressors  the compressors that can be found in the blocks
+	 */
+	public BlockInputStream(InputStream in, int maxBlockSize, BlockCompressor... compressors) {
+		this(in, maxBlockSize, null, 0, compressors);
+	}
+
+	/**
+	 * create a new BlockInputStream accepting blocks up to {@link BlockOutputStream#BLOCK_SIZE} and reading up to window
+	 * blocks ahead, see {@link #BlockInputStream(InputStream, int, ForkJoinPool, int, BlockCompressor...)}
+	 * 
+	 * @param in          the input
+	 * @param pool        the pool decompressing the blocks or null to decompress them on read
+	 * @param window      max number of block read ahead
+	 * @param compressors the compressors that can be found in the blocks
+	 */
+	public BlockInputStream(InputStream in, ForkJoinPool pool, int window, BlockCompressor... compressors) {
+		this(in, BlockOutputStream.BLOCK_SIZE, pool, window, compressors);
+	}
+
+	/**
+	 * create a new BlockInputStream reading up to window blocks ahead, they are decompressed in parallel in the pool. The
+	 * compressors must be thread safe
+	 * 
+	 * @param in           the input
+	 * @param maxBlockSize the max raw size of a block, the block size of the writer
+	 * @param pool         the pool decompressing the blocks or null to decompress them on read
+	 * @param window       max number of block read ahead
+	 * @param compressors  the compressors that can be found in the blocks
+	 */
+	public BlockInputStream(InputStream in, int maxBlockSize, ForkJoinPool pool, int window, BlockCompressor... compressors) {
+		if (maxBlockSize <= 0)
+			throw new IllegalArgumentException("invalid block size");
+		if (pool != null && window <= 0)
+			throw new IllegalArgumentException("window <= 0");
+		this.in = in;
+		this.maxBlockSize = maxBlockSize;
+		this.pool = pool;
+		this.window = window;
+		for (BlockCompressor c : compressors)
+			this.compressors[c.id()] = c;
+	}
+
+	/**
+	 * create a new BlockInputStream accepting deflate and lz blocks
+	 * 
+	 * @param in the input
+	 */
+	public BlockInputStream(InputStream in) {
+		this(in, new DeflateCompressor(), new LzCompressor());
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (pos == limit && !nextBlock())
+			return -1;
+		return block[pos++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return 0;
+		if (pos == limit && !nextBlock())
+			return -1;
+		int s = Math.min(len, limit - pos);
+		System.arraycopy(block, pos, b, off, s);
+		pos += s;
+		return s;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long s = 0;
+		while (n > s) {
+			if (pos == limit && !nextBlock())
+				break;
+			int l = (int) Math.min(n - s, limit - pos);
+			pos += l;
+			s += l;
+		}
+		return s;
+	}
+
+	@Override
+	public int available() {
+		return limit - pos;
+	}
+
+	/**
+	 * drop the remaining bytes of the current block, or if it's fully read skip the next block without decompressing it
+	 * (unless it was already read ahead).<br>
+	 * The writer doesn't flush at message boundaries so a message can span blocks, skipping a block only lands on a
+	 * message boundary if the writer was flushed there.
+	 * 
+	 * @return the number of raw bytes skipped or -1 if the end of stream is reached
+	 * @throws IOException on read error
+	 */
+	public long skipBlock() throws IOException {
+		if (pos < limit) {
+			int s = limit - pos;
+			pos = limit;
+			return s;
+		}
+		if (!pending.isEmpty())
+			return get(pending.poll()).length;
+		int id = in.read();
+		if (id == -1)
+			return -1;
+		int raw = IoUtils.readInt(in);
+		int len = IoUtils.readInt(in);
+		compressor(id, raw, len);
+		IoUtils.skip(in, len);
+		return raw;
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (Future<byte[]> f : pending)
+			f.cancel(false);
+		pending.clear();
+		in.close();
+	}
+
+	private boolean nextBlock() throws IOException {
+		if (pool == null)
+			return readBlock();
+		Future<byte[]> f;
+		while (pending.size() < window && (f = submitBlock()) != null)
+			pending.add(f);
+		f = pending.poll();
+		if (f == null)
+			return false;
+		block = get(f);
+		pos = 0;
+		limit = block.length;
+		return true;
+	}
+
+	/**
+	 * read the next block and submit its decompression
+	 * 
+	 * @return the raw block or null on end of stream
+	 * @throws IOException on read error
+	 */
+	private Future<byte[]> submitBlock() throws IOException {
+		int id = in.read();
+		if (id == -1)
+			return null;
+		int raw = IoUtils.readInt(in);
+		int len = IoUtils.readInt(in);
+		BlockCompressor c = compressor(id, raw, len);
+		byte[] data = new byte[len];
+		IoUtils.fill(in, data, 0, len);
+		if (id == 0)
+			return CompletableFuture.completedFuture(data);
+		return pool.submit(() -> {
+			byte[] b = new byte[raw];
+			c.decompress(data, len, b, raw);
+			return b;
+		});
+	}
+
+	/**
+	 * check a block header
+	 * 
+	 * @param id  the compressor id
+	 * @param raw the raw length
+	 * @param len the stored length
+	 * @return the compressor or null for a stored block
+	 * @throws IOException if the header is invalid
+	 */
+	private BlockCompressor compressor(int id, int raw, int len) throws IOException {
+		if (raw <= 0 || raw > maxBlockSize || len < 0 || id == 0 && len != raw)
+			throw new IOException("corrupt block");
+		if (id == 0)
+			return null;
+		BlockCompressor c = compressors[id];
+		if (c == null)
+			throw new IOException("unknown compressor " + id);
+		if (len > c.maxCompressedLength(raw))
+			throw new IOException("corrupt block");
+		return c;
+	}
+
+	private static byte[] get(Future<byte[]> f) throws IOException {
+		try {
+			return f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private boolean readBlock() throws IOException {
+		int id = in.read();
+		if (id == -1)
+			return false;
+		int raw = IoUtils.readInt(in);
+		int len = IoUtils.readInt(in);
+		BlockCompressor c = compressor(id, raw, len);
+		if (block.length < raw)
+			block = new byte[raw];
+		if (id == 0) {
+			IoUtils.fill(in, block, 0, raw);
+		} else {
+			if (buf.length < len)
+				buf = new byte[len];
+			IoUtils.fill(in, buf, 0, len);
+			c.decompress(buf, len, block, raw);
+		}
+		pos = 0;
+		limit = raw;
+		return true;
+	}
+}
@@ -0,0 +1,107 @@
+package unknow.serialize.binary.compress;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import unknow.serialize.binary.IoUtils;
+
+/**
+ * buffer the data in fixed size blocks and compress each one.<br>
+ * block layout: [compressor id][raw length][compressed length][data], block that don't compress are stored with id 0
+ * 
+ * @author unknow
+ */
+public class BlockOutputStream extends OutputStream {
+	/** default block size */
+	public static final int BLOCK_SIZE = 64 * 1024;
+
+	private final OutputStream out;
+	private final BlockCompressor compressor;
+	private final byte[] block;
+	private final byte[] buf;
+	private int len;
+
+	/**
+	 * create a new BlockOutputStream
+	 * 
+	 * @param out        the output
+	 * @param compressor the compressor to use
+	 * @param blockSize  the raw size of a block
+	 */
+	public BlockOutputStream(OutputStream out, BlockCompressor compressor, int blockSize) {
+		if (blockSize <= 0)
+			throw new IllegalArgumentException("invalid block size");
+		if (compressor.id() <= 0 || compressor.id() > 255)
+			throw new IllegalArgumentException("invalid compressor id");
+		this.out = out;
+		this.compressor = compressor;
+		this.block = new byte[blockSize];
+		this.buf = new byte[compressor.maxCompressedLength(blockSize)];
+	}
+
+	/**
+	 * create a new BlockOutputStream with the default block size
+	 * 
+	 * @param out        the output
+	 * @param compressor the compressor to use
+	 */
+	public BlockOutputStream(OutputStream out, BlockCompressor compressor) {
+		this(out, compressor, BLOCK_SIZE);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (len == block.length)
+			writeBlock();
+		block[len++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int l) throws IOException {
+		while (l > 0) {
+			if (len == block.length)
+				writeBlock();
+			int s = Math.min(l, block.length - len);
+			System.arraycopy(b, off, block, len, s);
+			len += s;
+			off += s;
+			l -= s;
+		}
+	}
+
+	/**
+	 * write the current partial block and flush the output
+	 */
+	@Override
+	public void flush() throws IOException {
+		writeBlock();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			writeBlock();
+		} finally {
+			out.close();
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		if (len == 0)
+			return;
+		int c = compressor.compress(block, len, buf);
+		if (c > 0 && c < len) {
+			out.write(compressor.id());
+			IoUtils.write(out, len);
+			IoUtils.write(out, c);
+			out.write(buf, 0, c);
+		} else {
+			out.write(0);
+			IoUtils.write(out, len);
+			IoUtils.write(out, len);
+			out.write(block, 0, len);
+		}
+		len = 0;
+	}
+}
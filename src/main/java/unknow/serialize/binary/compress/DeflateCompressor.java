@@ -0,0 +1,78 @@
+package unknow.serialize.binary.compress;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * java.util.zip.Deflater block compression
+ * 
+ * @author unknow
+ */
+public class DeflateCompressor implements BlockCompressor {
+	/** id of the deflate compressor */
+	public static final int ID = 1;
+
+	private final int level;
+
+	/**
+	 * create a new DeflateCompressor
+	 * 
+	 * @param level the deflate level
+	 */
+	public DeflateCompressor(int level) {
+		this.level = level;
+	}
+
+	/**
+	 * create a new DeflateCompressor with the default level
+	 */
+	public DeflateCompressor() {
+		this(Deflater.DEFAULT_COMPRESSION);
+	}
+
+	@Override
+	public int id() {
+		return ID;
+	}
+
+	@Override
+	public int maxCompressedLength(int len) {
+		return len + (len >> 12) + (len >> 14) + (len >> 25) + 64;
+	}
+
+	@Override
+	public int compress(byte[] src, int len, byte[] dst) {
+		Deflater d = new Deflater(level, true);
+		try {
+			d.setInput(src, 0, len);
+			d.finish();
+			int o = 0;
+			while (!d.finished() && o < dst.length)
+				o += d.deflate(dst, o, dst.length - o);
+			return o;
+		} finally {
+			d.end();
+		}
+	}
+
+	@Override
+	public void decompress(byte[] src, int len, byte[] dst, int raw) throws IOException {
+		Inflater i = new Inflater(true);
+		try {
+			i.setInput(src, 0, len);
+			int o = 0;
+			while (o < raw) {
+				int r = i.inflate(dst, o, raw - o);
+				if (r == 0 && (i.finished() || i.needsInput() || i.needsDictionary()))
+					throw new IOException("corrupt block");
+				o += r;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("corrupt block", e);
+		} finally {
+			i.end();
+		}
+	}
+}
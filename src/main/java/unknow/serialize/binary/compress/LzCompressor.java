@@ -0,0 +1,134 @@
+package unknow.serialize.binary.compress;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * fast LZ77 block compression using the LZ4 block layout: sequences of [token][literal length][literals][offset][match
+ * length] where the token holds 4 bits of literal length and 4 bits of match length
+ * 
+ * @author unknow
+ */
+public class LzCompressor implements BlockCompressor {
+	/** id of the lz compressor */
+	public static final int ID = 2;
+
+	private static final int HASH_LOG = 12;
+	private static final int MIN_MATCH = 4;
+	/** last bytes always written as literals */
+	private static final int LAST_LITERALS = 5;
+	/** no match can start in the last bytes */
+	private static final int MF_LIMIT = 12;
+	private static final int MAX_OFFSET = 65535;
+
+	@Override
+	public int id() {
+		return ID;
+	}
+
+	@Override
+	public int maxCompressedLength(int len) {
+		return len + len / 255 + 16;
+	}
+
+	@Override
+	public int compress(byte[] src, int len, byte[] dst) {
+		int[] table = new int[1 << HASH_LOG];
+		Arrays.fill(table, -1);
+		int anchor = 0;
+		int i = 0;
+		int o = 0;
+		int limit = len - MF_LIMIT;
+		while (i < limit) {
+			int seq = getInt(src, i);
+			int h = (seq * -1640531535) >>> (32 - HASH_LOG);
+			int ref = table[h];
+			table[h] = i;
+			if (ref < 0 || i - ref > MAX_OFFSET || getInt(src, ref) != seq) {
+				i++;
+				continue;
+			}
+			int m = MIN_MATCH;
+			int max = len - LAST_LITERALS - i;
+			while (m < max && src[ref + m] == src[i + m])
+				m++;
+
+			int lit = i - anchor;
+			int token = o++;
+			o = writeLength(dst, o, lit);
+			System.arraycopy(src, anchor, dst, o, lit);
+			o += lit;
+			dst[o++] = (byte) (i - ref);
+			dst[o++] = (byte) ((i - ref) >>> 8);
+			o = writeLength(dst, o, m - MIN_MATCH);
+			dst[token] = (byte) (Math.min(lit, 15) << 4 | Math.min(m - MIN_MATCH, 15));
+			i += m;
+			anchor = i;
+		}
+		int lit = len - anchor;
+		dst[o++] = (byte) (Math.min(lit, 15) << 4);
+		o = writeLength(dst, o, lit);
+		System.arraycopy(src, anchor, dst, o, lit);
+		return o + lit;
+	}
+
+	@Override
+	public void decompress(byte[] src, int len, byte[] dst, int raw) throws IOException {
+		try {
+			int i = 0;
+			int o = 0;
+			while (true) {
+				int token = src[i++] & 0xFF;
+				int lit = token >>> 4;
+				if (lit == 15) {
+					int b;
+					do {
+						b = src[i++] & 0xFF;
+						lit += b;
+					} while (b == 255);
+				}
+				System.arraycopy(src, i, dst, o, lit);
+				i += lit;
+				o += lit;
+				if (i >= len)
+					break;
+
+				int off = (src[i] & 0xFF) | (src[i + 1] & 0xFF) << 8;
+				i += 2;
+				int m = token & 0xF;
+				if (m == 15) {
+					int b;
+					do {
+						b = src[i++] & 0xFF;
+						m += b;
+					} while (b == 255);
+				}
+				m += MIN_MATCH;
+				if (off == 0 || off > o || o + m > raw)
+					throw new IOException("corrupt block");
+				for (int e = o + m; o < e; o++)
+					dst[o] = dst[o - off];
+			}
+			if (o != raw || i != len)
+				throw new IOException("corrupt block");
+		} catch (IndexOutOfBoundsException e) {
+			throw new IOException("corrupt block", e);
+		}
+	}
+
+	private static int writeLength(byte[] dst, int o, int l) {
+		if (l < 15)
+			return o;
+		l -= 15;
+		while (l >= 255) {
+			dst[o++] = (byte) 255;
+			l -= 255;
+		}
+		dst[o++] = (byte) l;
+		return o;
+	}
+
+	private static int getInt(byte[] b, int i) {
+		return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+	}
+}
@@ -0,0 +1,381 @@
+package unknow.serialize.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import unknow.serialize.binary.BinaryFormat;
+import unknow.serialize.binary.ByteBufferInputStream;
+
+/**
+ * append only log of objects stored in segment files named after the sequence of their first record.<br>
+ * Appends are buffered, records are read through memory mapping once flushed, {@link #sync(long)} make records durable
+ * and concurrent calls share the same fsync.
+ * 
+ * @author unknow
+ */
+public class ObjectLog implements Closeable {
+	private static final String EXT = ".log";
+
+	private final BinaryFormat format;
+	private final Path dir;
+	private final long segmentSize;
+	private final int interval;
+
+	private final TreeMap<Long, Segment> segments = new TreeMap<>();
+	private Segment active;
+
+	private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+	private final ByteBuffer buffer;
+	private final OutputStream bufferOut = new OutputStream() {
+		@Override
+		public void write(int b) {
+			buffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			buffer.put(b, off, len);
+		}
+	};
+
+	/** sequence of the next record */
+	private long next;
+	/** all record before this one are written in the file */
+	private long flushed;
+
+	private final Object syncLock = new Object();
+	/** all record before this one are durable */
+	private volatile long durable;
+
+	private boolean closed;
+
+	/**
+	 * open or create an object log
+	 * 
+	 * @param format      the format used to encode the records
+	 * @param dir         directory of the segments
+	 * @param segmentSize max size of a segment file
+	 * @param interval    number of record between two index entries
+	 * @param bufferSize  size of the append buffer
+	 * @throws IOException on IOException
+	 */
+	public ObjectLog(BinaryFormat format, Path dir, long segmentSize, int interval, int bufferSize) throws IOException {
+		if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("invalid segment size");
+		if (interval <= 0)
+			throw new IllegalArgumentException("invalid index interval");
+		this.format = format;
+		this.dir = dir;
+		this.segmentSize = segmentSize;
+		this.interval = interval;
+		this.buffer = ByteBuffer.allocate(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+
+		Files.createDirectories(dir);
+		try (DirectoryStream<Path> s = Files.newDirectoryStream(dir, "*" + EXT)) {
+			for (Path p : s) {
+				String n = p.getFileName().toString();
+				long base = Long.parseLong(n.substring(0, n.length() - EXT.length()));
+				segments.put(base, new Segment(p, base, interval));
+			}
+		} catch (NumberFormatException e) {
+			throw new IOException("invalid segment name", e);
+		}
+		if (segments.isEmpty())
+			segments.put(0L, new Segment(path(0), 0, interval));
+		active = segments.lastEntry().getValue();
+		next = flushed = durable = active.base + active.count;
+	}
+
+	/**
+	 * open or create an object log with 1GB segments, an index entry every 64 records and a 1MB buffer
+	 * 
+	 * @param format the format used to encode the records
+	 * @param dir    directory of the segments
+	 * @throws IOException on IOException
+	 */
+	public ObjectLog(BinaryFormat format, Path dir) throws IOException {
+		this(format, dir, 1L << 30, 64, 1 << 20);
+	}
+
+	/**
+	 * @return sequence of the first record still retained
+	 */
+	public synchronized long first() {
+		return segments.firstKey();
+	}
+
+	/**
+	 * @return sequence of the next appended record
+	 */
+	public synchronized long next() {
+		return next;
+	}
+
+	/**
+	 * append a record, the record is buffered until the buffer is full or {@link #flush()} or {@link #sync(long)} are
+	 * called
+	 * 
+	 * @param o the object
+	 * @return the sequence of the record
+	 * @throws IOException on IOException
+	 */
+	public synchronized long append(Object o) throws IOException {
+		if (closed)
+			throw new IOException("log closed");
+		record.reset();
+		format.write(o, record);
+		int len = record.size();
+
+		long pos = active.size + buffer.position();
+		if (active.count > 0 && pos + 4 + len > segmentSize) {
+			roll();
+			pos = 0;
+		}
+		if (buffer.remaining() < 4 + len)
+			flushBuffer();
+		if (buffer.remaining() < 4 + len) {
+			ByteBuffer b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, len);
+			writeFully(b);
+			writeFully(ByteBuffer.wrap(record.toByteArray()));
+			active.size += 4 + len;
+			flushed = next + 1;
+		} else {
+			buffer.putInt(len);
+			record.writeTo(bufferOut);
+		}
+		active.addRecord((int) pos);
+		return next++;
+	}
+
+	/**
+	 * write the buffered records to the file
+	 * 
+	 * @throws IOException on IOException
+	 */
+	public synchronized void flush() throws IOException {
+		flushBuffer();
+	}
+
+	/**
+	 * make all the records up to seq durable. Threads waiting while an fsync is in progress are released by the next
+	 * one.
+	 * 
+	 * @param seq the sequence
+	 * @throws IOException on IOException
+	 */
+	public void sync(long seq) throws IOException {
+		if (seq < durable)
+			return;
+		synchronized (syncLock) {
+			if (seq < durable)
+				return;
+			Segment s;
+			long target;
+			synchronized (this) {
+				flushBuffer();
+				s = active;
+				target = next;
+			}
+			s.ch.force(false);
+			durable = target;
+		}
+	}
+
+	/**
+	 * start a new segment
+	 * 
+	 * @throws IOException on IOException
+	 */
+	public synchronized void roll() throws IOException {
+		if (active.count == 0)
+			return;
+		flushBuffer();
+		active.ch.force(false);
+		active = new Segment(path(next), next, interval);
+		segments.put(next, active);
+	}
+
+	/**
+	 * delete the segments that only contains records before seq, the active segment is never deleted
+	 * 
+	 * @param seq the first sequence to retain
+	 * @return number of deleted segments
+	 * @throws IOException on IOException
+	 */
+	public synchronized int deleteBefore(long seq) throws IOException {
+		int c = 0;
+		Iterator<Segment> it = segments.values().iterator();
+		while (it.hasNext()) {
+			Segment s = it.next();
+			if (s == active || s.base + s.count > seq)
+				break;
+			it.remove();
+			s.delete();
+			c++;
+		}
+		return c;
+	}
+
+	/**
+	 * read a record
+	 * 
+	 * @param seq the sequence
+	 * @return the object
+	 * @throws IOException on IOException or if the record doesn't exists
+	 */
+	public Object read(long seq) throws IOException {
+		Segment s;
+		int pos;
+		synchronized (this) {
+			if (seq < segments.firstKey() || seq >= next)
+				throw new IOException("no record " + seq);
+			if (seq >= flushed)
+				flushBuffer();
+			s = segments.floorEntry(seq).getValue();
+			pos = s.indexed((int) (seq - s.base));
+		}
+		Segment.Window w = null;
+		for (int i = (int) (seq - s.base) % interval; i > 0; i--) {
+			w = cover(s, w, pos);
+			pos += 4 + w.getInt(pos);
+		}
+		return decode(cover(s, w, pos), pos);
+	}
+
+	/**
+	 * iterate over the records from seq to the last appended at the time of the call
+	 * 
+	 * @param seq the first sequence
+	 * @return the objects
+	 * @throws IOException on IOException or if seq isn't retained
+	 */
+	public Iterator<Object> iterator(long seq) throws IOException {
+		long end;
+		synchronized (this) {
+			if (seq < segments.firstKey() || seq > next)
+				throw new IOException("no record " + seq);
+			flushBuffer();
+			end = next;
+		}
+		return new Iterator<Object>() {
+			private long n = seq;
+			private Segment s;
+			private Segment.Window w;
+			private int pos;
+
+			@Override
+			public boolean hasNext() {
+				return n < end;
+			}
+
+			@Override
+			public Object next() {
+				if (n >= end)
+					throw new NoSuchElementException();
+				try {
+					if (s == null || n >= s.base + s.count) {
+						int i;
+						synchronized (ObjectLog.this) {
+							Map.Entry<Long, Segment> e = segments.floorEntry(n);
+							if (e == null)
+								throw new IOException("record " + n + " deleted");
+							s = e.getValue();
+							i = (int) (n - s.base);
+							pos = s.indexed(i);
+						}
+						w = null;
+						for (i %= interval; i > 0; i--) {
+							w = cover(s, w, pos);
+							pos += 4 + w.getInt(pos);
+						}
+					}
+					w = cover(s, w, pos);
+					Object o = decode(w, pos);
+					pos += 4 + w.getInt(pos);
+					n++;
+					return o;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * flush, sync and close all the segments
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (syncLock) {
+			synchronized (this) {
+				if (closed)
+					return;
+				flushBuffer();
+				active.ch.force(false);
+				closed = true;
+				for (Segment s : segments.values())
+					s.ch.close();
+			}
+		}
+	}
+
+	/**
+	 * @param s   the segment
+	 * @param w   the current mapping of s or null
+	 * @param pos the record position
+	 * @return w or a new mapping if the record isn't fully in w
+	 * @throws IOException on IOException
+	 */
+	private static Segment.Window cover(Segment s, Segment.Window w, int pos) throws IOException {
+		if (w == null || !w.covers(pos, pos + 4L))
+			w = s.map(pos, pos + 4L);
+		int len = w.getInt(pos);
+		if (len < 0)
+			throw new IOException("corrupt record (negative length)");
+		long end = pos + 4L + len;
+		return w.covers(pos, end) ? w : s.map(pos, end);
+	}
+
+	private Object decode(Segment.Window w, int pos) throws IOException {
+		int len = w.getInt(pos);
+		ByteBuffer r = w.buf.duplicate();
+		r.limit(pos - w.offset + 4 + len).position(pos - w.offset + 4);
+		ByteBufferInputStream in = new ByteBufferInputStream(r);
+		Object o = format.read(in);
+		if (r.hasRemaining())
+			throw new IOException("corrupt record (length mismatch)");
+		return o;
+	}
+
+	private void flushBuffer() throws IOException {
+		if (buffer.position() == 0)
+			return;
+		buffer.flip();
+		int l = buffer.remaining();
+		writeFully(buffer);
+		buffer.clear();
+		active.size += l;
+		flushed = next;
+	}
+
+	private void writeFully(ByteBuffer b) throws IOException {
+		while (b.hasRemaining())
+			active.ch.write(b);
+	}
+
+	private Path path(long base) {
+		return dir.resolve(String.format("%020d%s", base, EXT));
+	}
+}
@@ -0,0 +1,297 @@
+package unknow.serialize.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import unknow.serialize.binary.BinaryFormat;
+import unknow.serialize.binary.ByteBufferInputStream;
+
+/**
+ * long keyed store keeping the values encoded in direct memory.<br>
+ * The index is an open addressing table of [key][ref] in a direct buffer, values are stored in chunks as
+ * [capacity][length][bytes], a slot is reused when a value is replaced by one that fits.<br>
+ * Slots freed by a remove or a growing value are kept in a free list by capacity and reused by the next value that fits
+ * (best fit), they are never split, merged or compacted and the chunks are never released, so a workload with growing
+ * values can still fragment the memory, see {@link #usedBytes()} and {@link #liveBytes()}.<br>
+ * The store is not thread safe, concurrent {@link #get(long)} are safe as long as nothing is modified.
+ * 
+ * @author unknow
+ */
+public class OffHeapStore {
+	private static final int ENTRY = 16;
+	private static final int MAX_CAPACITY = 1 << 26;
+
+	private final BinaryFormat format;
+	private final int chunkSize;
+	private final List<ByteBuffer> chunks = new ArrayList<>();
+	/** free position in the last chunk */
+	private int free;
+	/** released slots by capacity */
+	private final TreeMap<Integer, ArrayDeque<Long>> released = new TreeMap<>();
+	/** bytes of the slots taken from the chunks */
+	private long used;
+	/** bytes of the released slots */
+	private long releasedBytes;
+	/** length of the stored values */
+	private long live;
+
+	private ByteBuffer index;
+	private int mask;
+	private int size;
+
+	private final ByteArrayOutputStream value = new ByteArrayOutputStream();
+	private ByteBuffer target;
+	private final OutputStream out = new OutputStream() {
+		@Override
+		public void write(int b) {
+			target.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			target.put(b, off, len);
+		}
+	};
+
+	/**
+	 * create a new OffHeapStore
+	 * 
+	 * @param format    the format used to encode the values
+	 * @param capacity  initial number of keys
+	 * @param chunkSize size of the value chunks
+	 */
+	public OffHeapStore(BinaryFormat format, int capacity, int chunkSize) {
+		if (chunkSize < 8)
+			throw new IllegalArgumentException("invalid chunk size");
+		this.format = format;
+		this.chunkSize = chunkSize;
+		int c = 16;
+		while (c * 7L / 10 < capacity && c < MAX_CAPACITY)
+			c <<= 1;
+		index = ByteBuffer.allocateDirect(c * ENTRY);
+		mask = c - 1;
+		free = chunkSize;
+	}
+
+	/**
+	 * create a new OffHeapStore with 64MB chunks
+	 * 
+	 * @param format the format used to encode the values
+	 */
+	public OffHeapStore(BinaryFormat format) {
+		this(format, 1024, 64 << 20);
+	}
+
+	/**
+	 * @return number of keys
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return bytes of the chunks allocated to slots, including their header and the released ones
+	 */
+	public long usedBytes() {
+		return used;
+	}
+
+	/**
+	 * @return bytes of the released slots waiting to be reused
+	 */
+	public long releasedBytes() {
+		return releasedBytes;
+	}
+
+	/**
+	 * @return encoded length of the stored values
+	 */
+	public long liveBytes() {
+		return live;
+	}
+
+	/**
+	 * @param key the key
+	 * @return true if the key exists
+	 */
+	public boolean containsKey(long key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * decode a value
+	 * 
+	 * @param key the key
+	 * @return the value or null
+	 * @throws IOException on decoding error
+	 */
+	public Object get(long key) throws IOException {
+		int i = find(key);
+		if (i < 0)
+			return null;
+		long ref = index.getLong(i * ENTRY + 8) - 1;
+		ByteBuffer b = chunks.get((int) (ref >>> 32)).duplicate();
+		int pos = (int) ref;
+		int len = b.getInt(pos + 4);
+		b.limit(pos + 8 + len).position(pos + 8);
+		return format.read(new ByteBufferInputStream(b));
+	}
+
+	/**
+	 * encode a value
+	 * 
+	 * @param key the key
+	 * @param o   the value
+	 * @throws IOException on encoding error
+	 */
+	public void put(long key, Object o) throws IOException {
+		value.reset();
+		format.write(o, value);
+		int len = value.size();
+
+		int i = find(key);
+		if (i >= 0) {
+			long ref = index.getLong(i * ENTRY + 8) - 1;
+			ByteBuffer b = chunks.get((int) (ref >>> 32));
+			int pos = (int) ref;
+			int capacity = b.getInt(pos);
+			live += len - b.getInt(pos + 4);
+			if (capacity >= len) {
+				write(b, pos + 4, len);
+				return;
+			}
+			release(ref, capacity);
+			index.putLong(i * ENTRY + 8, alloc(len) + 1);
+			return;
+		}
+		if (size + 1 > (mask + 1) * 7L / 10)
+			resize();
+		long ref = alloc(len);
+		i = slot(key);
+		while (index.getLong(i * ENTRY + 8) != 0)
+			i = (i + 1) & mask;
+		index.putLong(i * ENTRY, key);
+		index.putLong(i * ENTRY + 8, ref + 1);
+		live += len;
+		size++;
+	}
+
+	/**
+	 * remove a key, its slot is released for the next values that fit
+	 * 
+	 * @param key the key
+	 * @return true if the key existed
+	 */
+	public boolean remove(long key) {
+		int i = find(key);
+		if (i < 0)
+			return false;
+		long old = index.getLong(i * ENTRY + 8) - 1;
+		ByteBuffer b = chunks.get((int) (old >>> 32));
+		live -= b.getInt((int) old + 4);
+		release(old, b.getInt((int) old));
+		// backward shift deletion
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			long ref = index.getLong(j * ENTRY + 8);
+			if (ref == 0)
+				break;
+			int k = slot(index.getLong(j * ENTRY));
+			if (i <= j ? (i < k && k <= j) : (i < k || k <= j))
+				continue;
+			index.putLong(i * ENTRY, index.getLong(j * ENTRY));
+			index.putLong(i * ENTRY + 8, ref);
+			i = j;
+		}
+		index.putLong(i * ENTRY, 0);
+		index.putLong(i * ENTRY + 8, 0);
+		size--;
+		return true;
+	}
+
+	private void release(long ref, int capacity) {
+		released.computeIfAbsent(capacity, k -> new ArrayDeque<>()).push(ref);
+		releasedBytes += capacity + 8;
+	}
+
+	private long alloc(int len) throws IOException {
+		Map.Entry<Integer, ArrayDeque<Long>> e = released.ceilingEntry(len);
+		if (e != null) {
+			ArrayDeque<Long> q = e.getValue();
+			long ref = q.pop();
+			if (q.isEmpty())
+				released.remove(e.getKey());
+			releasedBytes -= e.getKey() + 8;
+			write(chunks.get((int) (ref >>> 32)), (int) ref + 4, len);
+			return ref;
+		}
+		int need = len + 8;
+		if (need > chunkSize - free) {
+			chunks.add(ByteBuffer.allocateDirect(Math.max(chunkSize, need)));
+			free = 0;
+		}
+		int c = chunks.size() - 1;
+		ByteBuffer b = chunks.get(c);
+		int pos = free;
+		b.putInt(pos, len);
+		write(b, pos + 4, len);
+		free = pos + need;
+		used += need;
+		if (free > chunkSize)
+			free = chunkSize;
+		return (long) c << 32 | pos;
+	}
+
+	private void write(ByteBuffer b, int pos, int len) throws IOException {
+		b.putInt(pos, len);
+		ByteBuffer d = b.duplicate();
+		d.position(pos + 4);
+		target = d;
+		value.writeTo(out);
+		target = null;
+	}
+
+	private int find(long key) {
+		int i = slot(key);
+		while (true) {
+			if (index.getLong(i * ENTRY + 8) == 0)
+				return -1;
+			if (index.getLong(i * ENTRY) == key)
+				return i;
+			i = (i + 1) & mask;
+		}
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ h >>> 32) & mask;
+	}
+
+	private void resize() {
+		int c = mask + 1;
+		if (c >= MAX_CAPACITY)
+			throw new IllegalStateException("store full");
+		ByteBuffer old = index;
+		index = ByteBuffer.allocateDirect(c * 2 * ENTRY);
+		mask = c * 2 - 1;
+		for (int j = 0; j < c; j++) {
+			long ref = old.getLong(j * ENTRY + 8);
+			if (ref == 0)
+				continue;
+			long key = old.getLong(j * ENTRY);
+			int i = slot(key);
+			while (index.getLong(i * ENTRY + 8) != 0)
+				i = (i + 1) & mask;
+			index.putLong(i * ENTRY, key);
+			index.putLong(i * ENTRY + 8, ref);
+		}
+	}
+}
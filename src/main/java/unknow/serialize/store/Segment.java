@@ -0,0 +1,163 @@
+package unknow.serialize.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * one segment file of an {@link ObjectLog}, records are [int32 LE length][payload]
+ * 
+ * @author unknow
+ */
+final class Segment {
+	/** sequence of the first record */
+	final long base;
+	final Path path;
+	final FileChannel ch;
+	private final int interval;
+
+	/** bytes written in the file, updated under the {@link ObjectLog} lock and read by the readers */
+	volatile long size;
+	/** number of record */
+	int count;
+
+	/** position of the records base + i * interval */
+	private int[] index = new int[16];
+
+	/** mapping from the start of the file */
+	private Window map;
+	/** mapping of the records flushed after map */
+	private Window tail;
+
+	/**
+	 * open or create a segment, the index is rebuilt and a partially written record is truncated
+	 * 
+	 * @param path     the file
+	 * @param base     sequence of the first record
+	 * @param interval index interval
+	 * @throws IOException on IOException
+	 */
+	Segment(Path path, long base, int interval) throws IOException {
+		this.path = path;
+		this.base = base;
+		this.interval = interval;
+		this.ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		long fileSize = ch.size();
+		if (fileSize == 0)
+			return;
+		ByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, fileSize).order(ByteOrder.LITTLE_ENDIAN);
+		int pos = 0;
+		while (pos + 4 <= fileSize) {
+			int len = b.getInt(pos);
+			if (len < 0 || pos + 4L + len > fileSize)
+				break;
+			addRecord(pos);
+			pos += 4 + len;
+		}
+		size = pos;
+		if (pos != fileSize)
+			ch.truncate(pos);
+		ch.position(pos);
+	}
+
+	/**
+	 * register a new record
+	 * 
+	 * @param pos position of the record
+	 */
+	void addRecord(int pos) {
+		if (count % interval == 0) {
+			int i = count / interval;
+			if (i == index.length)
+				index = Arrays.copyOf(index, i * 2);
+			index[i] = pos;
+		}
+		count++;
+	}
+
+	/**
+	 * @param i record index in this segment
+	 * @return position of the closest indexed record before i
+	 */
+	int indexed(int i) {
+		return index[i / interval];
+	}
+
+	/**
+	 * the current mappings are reused as long as they cover the record, otherwise only the tail of the file from pos is
+	 * mapped; all the flushed records are re-mapped once the file doubled since the last full mapping
+	 * 
+	 * @param pos the start of the record
+	 * @param end the end of the needed bytes
+	 * @return a mapping covering pos to end
+	 * @throws IOException on IOException or if end is after the flushed records
+	 */
+	synchronized Window map(int pos, long end) throws IOException {
+		if (map != null && map.covers(pos, end))
+			return map;
+		if (tail != null && tail.covers(pos, end))
+			return tail;
+		long size = this.size;
+		if (end > size)
+			throw new IOException("corrupt record (beyond segment end)");
+		long mapped = map == null ? 0 : map.buf.capacity();
+		if (size - mapped >= mapped) {
+			map = new Window(0, ch.map(FileChannel.MapMode.READ_ONLY, 0, size));
+			tail = null;
+			return map;
+		}
+		tail = new Window(pos, ch.map(FileChannel.MapMode.READ_ONLY, pos, size - pos));
+		return tail;
+	}
+
+	/**
+	 * close and delete the segment
+	 * 
+	 * @throws IOException on IOException
+	 */
+	void delete() throws IOException {
+		ch.close();
+		synchronized (this) {
+			map = null;
+			tail = null;
+		}
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * a read only mapping of the segment bytes from offset
+	 */
+	static final class Window {
+		final int offset;
+		final ByteBuffer buf;
+
+		Window(int offset, MappedByteBuffer buf) {
+			this.offset = offset;
+			this.buf = buf.order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		/**
+		 * @param pos start of the bytes
+		 * @param end end of the bytes
+		 * @return true if the bytes are mapped
+		 */
+		boolean covers(int pos, long end) {
+			return pos >= offset && end <= offset + (long) buf.capacity();
+		}
+
+		/**
+		 * @param pos position in the segment
+		 * @return the little endian int at pos
+		 */
+		int getInt(int pos) {
+			return buf.getInt(pos - offset);
+		}
+	}
+}
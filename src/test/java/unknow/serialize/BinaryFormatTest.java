@@ -5,22 +5,67 @@ package unknow.serialize;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.zip.Checksum;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import unknow.serialize.binary.ArrayReader;
+import unknow.serialize.binary.ArrayWriter;
 import unknow.serialize.binary.BinaryFormat;
 import unknow.serialize.binary.BinaryFormatBuilder;
+import unknow.serialize.binary.CheckedFrameReader;
+import unknow.serialize.binary.CheckedFrameWriter;
+import unknow.serialize.binary.CodecBuilder;
+import unknow.serialize.binary.Columnar;
+import unknow.serialize.binary.Crc32c;
+import unknow.serialize.binary.EncodedCache;
+import unknow.serialize.binary.IndexedBlocks;
+import unknow.serialize.binary.IoUtils;
+import unknow.serialize.binary.MessageDecoder;
+import unknow.serialize.binary.View;
+import unknow.serialize.binary.codecs.BooleanCodec;
+import unknow.serialize.binary.codecs.ByteCodec;
+import unknow.serialize.binary.codecs.DoubleCodec;
+import unknow.serialize.binary.codecs.FloatCodec;
+import unknow.serialize.binary.codecs.IntegerCodec;
+import unknow.serialize.binary.codecs.LongCodec;
+import unknow.serialize.binary.codecs.ShortCodec;
+import unknow.serialize.binary.codecs.StringCodec;
+import unknow.serialize.binary.compress.BlockCompressor;
+import unknow.serialize.binary.compress.BlockInputStream;
+import unknow.serialize.binary.compress.BlockOutputStream;
+import unknow.serialize.binary.compress.DeflateCompressor;
+import unknow.serialize.binary.compress.LzCompressor;
+import unknow.serialize.store.ObjectLog;
+import unknow.serialize.store.OffHeapStore;
 
 /**
  * @author unknow
@@ -28,6 +73,9 @@ import unknow.serialize.binary.BinaryFormatBuilder;
 public class BinaryFormatTest {
 	private static final Random rand = new Random();
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@SuppressWarnings("rawtypes")
 	private static BinaryFormat format(Class... cl) throws ReflectiveOperationException {
 //		BinaryFormat.Builder b=BinaryFormat.create();
@@ -174,6 +222,1104 @@ public class BinaryFormatTest {
 
 	}
 
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testSkip() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = format(Primitive.class, Wrapper.class, PrimitiveArray.class, EnumTest.class, Byte[].class, HashMap.class, ArrayList.class, Pojo.class, String.class);
+
+		Pojo pojo = new Pojo();
+		pojo.setMultiArray(new int[][] { new int[] { 1, 2, 300 }, new int[0] });
+		pojo.setList(new ArrayList(Arrays.asList("a", "bc")));
+		pojo.addInner(new Pojo.Inner(4));
+		Map<Byte, Byte> map = new HashMap<>();
+		map.put((byte) 1, null);
+		PrimitiveArray array = new PrimitiveArray();
+		array.bool = new boolean[13];
+		array.d = new double[3];
+		Wrapper wrapper = new Wrapper();
+		wrapper.bool = true;
+		wrapper.l = Long.MAX_VALUE;
+		Wrapper negative = new Wrapper();
+		negative.l = -1L;
+		Primitive primitive = new Primitive();
+		primitive.l = Long.MIN_VALUE;
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Object[] values = { new Primitive(), wrapper, negative, primitive, array, EnumTest.V2, new Byte[] { 1, null }, map, pojo, "skipped", null, rand.nextDouble() };
+		for (Object o : values)
+			binary.write(o, out);
+		binary.write("end", out);
+
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		for (int i = 0; i < values.length; i++)
+			binary.skip(in);
+		assertEquals("end", binary.read(in));
+		assertEquals(0, in.available());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testProjection() throws ReflectiveOperationException, IOException {
+		BinaryFormatBuilder b = new BinaryFormatBuilder();
+		b.register(ArrayList.class).register(Integer.class).register(Pojo.class).register(Wrapper.class);
+		BinaryFormat binary = b.build();
+
+		Pojo pojo = new Pojo();
+		pojo.setValue(42);
+		pojo.setMultiArray(new int[][] { new int[] { 1, 2 } });
+		pojo.setList(new ArrayList(Arrays.asList(1, 5)));
+		pojo.addInner(new Pojo.Inner(4));
+		Wrapper wrapper = new Wrapper();
+		wrapper.bool = false;
+		wrapper.i = 12;
+		wrapper.l = 13L;
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.write(pojo, out);
+		binary.write(wrapper, out);
+		binary.write(7, out);
+
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		Pojo p = b.projection(Pojo.class, "value", "inner").read(binary, in);
+		assertEquals(42, p.getValue());
+		assertEquals(pojo.getInner(), p.getInner());
+		assertEquals(null, p.getList());
+		assertEquals(null, p.getMultiArray());
+
+		Wrapper w = b.projection(Wrapper.class, "bool", "l").read(binary, in);
+		assertEquals(Boolean.FALSE, w.bool);
+		assertEquals(Long.valueOf(13), w.l);
+		assertEquals(null, w.i);
+		assertEquals(7, binary.read(in));
+	}
+
+	@Test
+	public void testView() throws ReflectiveOperationException, IOException {
+		BinaryFormatBuilder b = new BinaryFormatBuilder();
+		b.register(Primitive.class).register(Wrapper.class);
+		BinaryFormat binary = b.build();
+
+		Primitive o = new Primitive();
+		o.bool = true;
+		o.b = (byte) rand.nextInt(256);
+		o.c = (char) rand.nextInt(65536);
+		o.i = rand.nextInt();
+		o.l = rand.nextLong();
+		o.d = rand.nextDouble();
+		Wrapper w = new Wrapper();
+		w.bool = false;
+		w.s = 12;
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(new byte[3]);
+		binary.write(o, out);
+		int second = out.size();
+		binary.write(w, out);
+		byte[] bytes = out.toByteArray();
+
+		View view = b.view(Primitive.class).wrap(binary, bytes, 3);
+		assertEquals(o.d, view.getDouble("d"), 0);
+		assertEquals(o.i, view.getInt("i"));
+		assertEquals(o.b, view.getByte("b"));
+		assertEquals(o.c, view.getChar("c"));
+		assertEquals(o.l, view.getLong("l"));
+		assertEquals(true, view.getBoolean("bool"));
+		assertEquals(second - 3, view.length());
+
+		view = b.view(Wrapper.class).wrap(binary, bytes, second);
+		assertEquals(Boolean.FALSE, view.get("bool"));
+		assertEquals((short) 12, view.get("s"));
+		assertEquals(null, view.get("d"));
+		assertEquals(bytes.length - second, view.length());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testFixedLayout() throws ReflectiveOperationException, IOException {
+		BinaryFormatBuilder b = new BinaryFormatBuilder();
+		b.fixedLayout(Primitive.class).fixedLayout(Wrapper.class).fixedLayout(Pojo.class);
+		b.register(Primitive.class).register(Wrapper.class).register(ArrayList.class).register(Integer.class).register(Pojo.class);
+		BinaryFormat binary = b.build();
+		BinaryFormat plain = format(Primitive.class, Wrapper.class, ArrayList.class, Integer.class, Pojo.class);
+		assertTrue(!Arrays.equals(binary.hash(), plain.hash()));
+		BinaryFormat one = new BinaryFormatBuilder().fixedLayout(Primitive.class).register(Primitive.class).register(Wrapper.class).register(ArrayList.class).register(Integer.class).register(Pojo.class).build();
+		assertTrue(!Arrays.equals(binary.hash(), one.hash()));
+
+		Primitive o = new Primitive();
+		o.bool = true;
+		o.b = (byte) rand.nextInt(256);
+		o.c = (char) rand.nextInt(65536);
+		o.s = (short) rand.nextInt(65536);
+		o.i = rand.nextInt();
+		o.l = rand.nextLong();
+		o.f = rand.nextFloat();
+		o.d = rand.nextDouble();
+		assertReadWrite("Primitive", binary, o);
+
+		Wrapper w = new Wrapper();
+		w.bool = false;
+		w.i = 12;
+		assertReadWrite("Wrapper", binary, w);
+
+		Pojo pojo = new Pojo();
+		pojo.setValue(42);
+		pojo.setList(new ArrayList(Arrays.asList(1, 5)));
+		pojo.addInner(new Pojo.Inner(4));
+		assertReadWrite("Pojo", binary, pojo);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.write(o, out);
+		binary.write(pojo, out);
+		binary.write(w, out);
+		byte[] bytes = out.toByteArray();
+
+		View view = b.view(Primitive.class).wrap(binary, bytes, 0);
+		assertEquals(o.l, view.getLong("l"));
+		assertEquals(o.s, view.getShort("s"));
+		assertEquals(o.f, view.getFloat("f"), 0);
+		assertEquals(true, view.getBoolean("bool"));
+		int off = view.length();
+		view = b.view(Pojo.class).wrap(binary, bytes, off);
+		assertEquals(pojo.getList(), view.get("list"));
+		assertEquals(42, view.getInt("value"));
+		off += view.length();
+		assertEquals(Boolean.FALSE, b.view(Wrapper.class).wrap(binary, bytes, off).get("bool"));
+
+		ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+		binary.skip(in);
+		binary.skip(in);
+		assertEquals(w, binary.read(in));
+	}
+
+	@Test
+	public void testArrayWriter() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = format(String.class, Integer.class);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int len = ArrayWriter.CHUNK * 2 + rand.nextInt(ArrayWriter.CHUNK);
+		try (ArrayWriter<String> w = binary.openArrayWriter(out, String.class)) {
+			for (int i = 0; i < len; i++)
+				w.write(i % 7 == 0 ? null : Integer.toString(i));
+		}
+		binary.openArrayWriter(out, String.class).close();
+		try (ArrayWriter<String> w = binary.openArrayWriter(out, String.class)) {
+			w.write("skipped");
+		}
+		binary.write(42, out);
+
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		ArrayReader<String> r = binary.openArrayReader(in, String.class);
+		int i = 0;
+		while (r.hasNext()) {
+			assertEquals(i % 7 == 0 ? null : Integer.toString(i), r.next());
+			i++;
+		}
+		assertEquals(len, i);
+		assertEquals(false, binary.openArrayReader(in, String.class).hasNext());
+		binary.openArrayReader(in, String.class).close();
+		assertEquals(42, binary.read(in));
+	}
+
+	@Test
+	public void testReadStream() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = format(ArrayList.class, Integer.class, Byte[].class);
+
+		ArrayList<Integer> list = new ArrayList<>();
+		int len = rand.nextInt(256);
+		for (int i = 0; i < len; i++)
+			list.add(rand.nextBoolean() ? null : rand.nextInt());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.write(list, out);
+		binary.write(new Byte[] { 1, 2 }, out);
+		binary.write(null, out);
+
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		assertEquals(list, binary.readStream(in, Integer.class).collect(Collectors.toList()));
+		assertEquals(3, binary.readStream(in, Byte.class).mapToInt(b -> b).sum());
+		assertEquals(0, binary.readStream(in, Object.class).count());
+		assertEquals(0, in.available());
+
+		out.reset();
+		binary.write(42, out);
+		binary.write(list, out);
+		in = new ByteArrayInputStream(out.toByteArray());
+		try {
+			binary.readStream(in, Integer.class);
+			fail("Integer isn't a collection");
+		} catch (IOException e) { // ok
+		}
+		in.skip(in.available());
+		list.add(0, 1);
+		out.reset();
+		binary.write(list, out);
+		in = new ByteArrayInputStream(out.toByteArray());
+		try {
+			binary.readStream(in, Byte.class).forEach(b -> {
+			});
+			fail("elements aren't Byte");
+		} catch (UncheckedIOException e) { // ok
+		}
+	}
+
+	@Test
+	public void testIndexed() throws ReflectiveOperationException, IOException {
+		BinaryFormatBuilder b = new BinaryFormatBuilder();
+		b.addBuilder(ArrayList.class, CodecBuilder.indexed(64)).addBuilder(Integer[].class, CodecBuilder.indexed(100));
+		BinaryFormat binary = b.register(ArrayList.class).register(Integer[].class).register(String.class).build();
+
+		ArrayList<Object> list = new ArrayList<>();
+		int len = 1000 + rand.nextInt(1000);
+		Integer[] a = new Integer[len];
+		for (int i = 0; i < len; i++) {
+			list.add(rand.nextBoolean() ? null : Integer.toString(rand.nextInt()));
+			a[i] = rand.nextInt();
+		}
+		assertReadWrite("ArrayList", binary, list);
+		assertReadWrite("Integer[]", binary, a);
+		assertReadWrite("empty", binary, new ArrayList<>());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.write(list, out);
+		binary.write("end", out);
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		binary.skip(in);
+		assertEquals("end", binary.read(in));
+
+		// zero block size and block lengths overflowing an int
+		byte[] zero = { 1, 0 };
+		byte[] overflow = { 2, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 1 };
+		for (byte[] corrupt : new byte[][] { zero, overflow }) {
+			try {
+				IndexedBlocks.read(binary, new ByteArrayInputStream(corrupt), Object.class);
+				fail("corrupt blocks read");
+			} catch (IOException e) { // ok
+			}
+			try {
+				IndexedBlocks.skip(binary, new ByteArrayInputStream(corrupt));
+				fail("corrupt blocks skipped");
+			} catch (IOException e) { // ok
+			}
+		}
+
+		// elements of the wrong type
+		out.reset();
+		IndexedBlocks.write(binary, Arrays.asList("a", "b"), 1, out);
+		try {
+			IndexedBlocks.read(binary, new ByteArrayInputStream(out.toByteArray()), Integer.class);
+			fail("String read as Integer");
+		} catch (IOException e) { // ok
+		}
+
+		// trailing bytes in a block
+		out.reset();
+		binary.write("a", out);
+		byte[] elem = out.toByteArray();
+		out.reset();
+		out.write(1); // len
+		out.write(1); // block size
+		out.write(elem.length + 1);
+		out.write(elem);
+		out.write(0);
+		try {
+			IndexedBlocks.read(binary, new ByteArrayInputStream(out.toByteArray()), Object.class);
+			fail("block not fully read");
+		} catch (IOException e) { // ok
+		}
+	}
+
+	@Test
+	public void testBatch() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = format(Wrapper.class, String.class);
+
+		List<Object> list = new ArrayList<>();
+		int len = rand.nextInt(1000);
+		for (int i = 0; i < len; i++) {
+			Wrapper w = new Wrapper();
+			w.i = rand.nextInt();
+			list.add(rand.nextBoolean() ? w : rand.nextBoolean() ? null : Integer.toString(i));
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.writeBatch(list, out);
+		binary.writeBatch(new ArrayList<>(), out);
+		binary.write("end", out);
+
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		assertEquals(list, binary.readBatch(in));
+		assertEquals(0, binary.readBatch(in).size());
+		assertEquals("end", binary.read(in));
+
+		// negative or truncated counts and lengths
+		byte[] count = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F };
+		byte[] frames = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 1, 2 };
+		byte[] length = { 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F };
+		for (byte[] b : new byte[][] { count, frames, length }) {
+			try {
+				binary.readBatch(new ByteArrayInputStream(b));
+				fail("corrupt batch read");
+			} catch (IOException e) { // ok
+			}
+		}
+	}
+
+	@Test
+	public void testMessage() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = format(Wrapper.class, String.class);
+
+		Wrapper w = new Wrapper();
+		w.l = rand.nextLong();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.writeMessage(w, out);
+		binary.writeMessage("skipped", out);
+		binary.writeMessage(null, out);
+		binary.writeMessage("end", out);
+
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		assertEquals(w, binary.readMessage(in));
+		assertEquals(9, binary.skipMessage(in));
+		assertEquals(null, binary.readMessage(in));
+		assertEquals("end", binary.readMessage(in));
+
+		List<Object> list = new ArrayList<>();
+		binary.messages(new ByteArrayInputStream(out.toByteArray())).forEachRemaining(list::add);
+		assertEquals(Arrays.asList(w, "skipped", null, "end"), list);
+
+		// negative and truncated huge lengths
+		byte[] negative = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F };
+		byte[] huge = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 1, 2 };
+		for (byte[] b : new byte[][] { negative, huge }) {
+			try {
+				binary.readMessage(new ByteArrayInputStream(b));
+				fail("invalid message read");
+			} catch (IOException e) { // ok
+			}
+			try {
+				binary.skipMessage(new ByteArrayInputStream(b));
+				fail("invalid message skipped");
+			} catch (IOException e) { // ok
+			}
+		}
+	}
+
+	@Test
+	public void testMessageDecoder() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = format(Wrapper.class, String.class);
+
+		List<Object> list = new ArrayList<>();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int i = 0; i < 100; i++) {
+			Wrapper w = new Wrapper();
+			w.l = rand.nextLong();
+			Object o = rand.nextBoolean() ? w : rand.nextBoolean() ? null : new String(new char[rand.nextInt(300)]);
+			list.add(o);
+			binary.writeMessage(o, out);
+		}
+		byte[] bytes = out.toByteArray();
+
+		MessageDecoder decoder = new MessageDecoder(binary, 1024);
+		List<Object> read = new ArrayList<>();
+		for (int i = 0; i < bytes.length;) {
+			int l = Math.min(rand.nextInt(20), bytes.length - i);
+			if (decoder.feed(ByteBuffer.wrap(bytes, i, l))) {
+				while (decoder.available())
+					read.add(decoder.next());
+			}
+			i += l;
+		}
+		assertEquals(list, read);
+
+		// negative and overlong lengths
+		byte[] negative = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F };
+		byte[] overlong = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01 };
+		for (byte[] b : new byte[][] { negative, overlong }) {
+			try {
+				new MessageDecoder(binary, Integer.MAX_VALUE).feed(ByteBuffer.wrap(b));
+				fail("invalid length accepted");
+			} catch (IOException e) { // ok
+			}
+			try {
+				binary.messages(new ByteArrayInputStream(b)).hasNext();
+				fail("invalid length accepted");
+			} catch (UncheckedIOException e) { // ok
+			}
+		}
+	}
+
+	@Test
+	public void testBlockCompression() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = format(Wrapper.class, String.class);
+
+		for (BlockCompressor c : new BlockCompressor[] { new LzCompressor(), new DeflateCompressor() }) {
+			List<Object> list = new ArrayList<>();
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try (BlockOutputStream block = new BlockOutputStream(out, c, 4096)) {
+				for (int i = 0; i < 2000; i++) {
+					Wrapper w = new Wrapper();
+					w.i = rand.nextInt(10);
+					Object o = rand.nextBoolean() ? w : "value " + rand.nextInt(100);
+					list.add(o);
+					binary.writeMessage(o, block);
+				}
+			}
+			byte[] bytes = out.toByteArray();
+
+			List<Object> read = new ArrayList<>();
+			binary.messages(new BlockInputStream(new ByteArrayInputStream(bytes))).forEachRemaining(read::add);
+			assertEquals(c.getClass().getSimpleName(), list, read);
+
+			read.clear();
+			binary.messages(new BlockInputStream(new ByteArrayInputStream(bytes), ForkJoinPool.commonPool(), 4, c)).forEachRemaining(read::add);
+			assertEquals(c.getClass().getSimpleName() + " parallel", list, read);
+
+			long raw = 0;
+			long s;
+			BlockInputStream in = new BlockInputStream(new ByteArrayInputStream(bytes));
+			while ((s = in.skipBlock()) > 0)
+				raw += s;
+			assertTrue(c.getClass().getSimpleName(), raw > bytes.length);
+
+			long parallel = 0;
+			in = new BlockInputStream(new ByteArrayInputStream(bytes), ForkJoinPool.commonPool(), 4, c);
+			in.read();
+			parallel++;
+			while ((s = in.skipBlock()) > 0)
+				parallel += s;
+			assertEquals(c.getClass().getSimpleName(), raw, parallel);
+		}
+
+		byte[] random = new byte[10000];
+		rand.nextBytes(random);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (BlockOutputStream block = new BlockOutputStream(out, new LzCompressor(), 4096)) {
+			block.write(random);
+		}
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		BlockInputStream in = new BlockInputStream(new ByteArrayInputStream(out.toByteArray()));
+		byte[] b = new byte[100];
+		int l;
+		while ((l = in.read(b)) > 0)
+			read.write(b, 0, l);
+		assertArrayEquals(random, read.toByteArray());
+
+		// blocks larger than the max block size
+		in = new BlockInputStream(new ByteArrayInputStream(out.toByteArray()), 1024, new LzCompressor());
+		try {
+			in.read();
+			fail("block larger than the max size read");
+		} catch (IOException e) { // ok
+		}
+		byte[] huge = { 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 1, 0 };
+		in = new BlockInputStream(new ByteArrayInputStream(huge));
+		try {
+			in.read();
+			fail("corrupt block length read");
+		} catch (IOException e) { // ok
+		}
+	}
+
+	@Test
+	public void testCheckedFrame() throws ReflectiveOperationException, IOException {
+		byte[] check = "123456789".getBytes(StandardCharsets.US_ASCII);
+		Checksum crc = new Crc32c();
+		crc.update(check, 0, check.length);
+		assertEquals(0xE3069283L, crc.getValue());
+		crc = Crc32c.create();
+		crc.update(check, 0, check.length);
+		assertEquals(0xE3069283L, crc.getValue());
+
+		BinaryFormat binary = format(Wrapper.class, String.class);
+		List<Object> list = new ArrayList<>();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CheckedFrameWriter writer = new CheckedFrameWriter(binary, out);
+		int corrupt = 0;
+		for (int i = 0; i < 50; i++) {
+			if (i == 20)
+				corrupt = out.size() + 5;
+			Object o = "value " + i;
+			writer.write(o);
+			if (i != 20 && i != 49)
+				list.add(o);
+		}
+		byte[] bytes = out.toByteArray();
+		bytes[corrupt] ^= 0x10;
+		bytes = Arrays.copyOf(bytes, bytes.length - 2);
+
+		CheckedFrameReader reader = new CheckedFrameReader(binary, new ByteArrayInputStream(bytes), 1024);
+		List<Object> read = new ArrayList<>();
+		while (reader.hasNext())
+			read.add(reader.next());
+		assertEquals(list, read);
+		assertTrue(reader.skipped() > 0);
+	}
+
+	@Test
+	public void testObjectLog() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = format(Wrapper.class, String.class);
+		Path dir = folder.newFolder().toPath();
+
+		List<Object> list = new ArrayList<>();
+		try (ObjectLog log = new ObjectLog(binary, dir, 4096, 8, 512)) {
+			for (int i = 0; i < 1000; i++) {
+				Object o = i % 100 == 0 ? new String(new char[700]) : "value " + i;
+				assertEquals(i, log.append(o));
+				list.add(o);
+				if (i % 10 == 0)
+					log.sync(i);
+			}
+			assertEquals(list.get(999), log.read(999));
+			assertEquals(list.get(13), log.read(13));
+		}
+		try (FileChannel ch = FileChannel.open(dir.resolve(Files.list(dir).max(Path::compareTo).get()), StandardOpenOption.WRITE)) {
+			ch.write(ByteBuffer.wrap(new byte[] { 100, 0, 0, 0, 1 }), ch.size());
+		}
+
+		try (ObjectLog log = new ObjectLog(binary, dir, 4096, 8, 512)) {
+			assertEquals(1000, log.next());
+			for (int i = 0; i < 1000; i += 7)
+				assertEquals(list.get(i), log.read(i));
+			List<Object> read = new ArrayList<>();
+			log.iterator(500).forEachRemaining(read::add);
+			assertEquals(list.subList(500, 1000), read);
+
+			assertTrue(log.deleteBefore(500) > 0);
+			assertTrue(log.first() <= 500);
+			read.clear();
+			log.iterator(log.first()).forEachRemaining(read::add);
+			assertEquals(list.subList((int) log.first(), 1000), read);
+			assertEquals(1000, log.append("new"));
+
+			// reads interleaved with appends
+			for (int i = 1001; i < 1100; i++) {
+				assertEquals(i, log.append("value " + i));
+				assertEquals("value " + i, log.read(i));
+				assertEquals("new", log.read(1000));
+			}
+		}
+	}
+
+	@Test
+	public void testOffHeapStore() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = format(Wrapper.class, String.class);
+		OffHeapStore store = new OffHeapStore(binary, 4, 1024);
+
+		Map<Long, Object> map = new HashMap<>();
+		for (int i = 0; i < 5000; i++) {
+			long key = rand.nextInt(2000);
+			int op = rand.nextInt(3);
+			if (op == 0) {
+				assertEquals(map.remove(key) != null, store.remove(key));
+			} else {
+				Object o = op == 1 ? "value " + i : new String(new char[rand.nextInt(2000)]);
+				map.put(key, o);
+				store.put(key, o);
+			}
+		}
+		assertEquals(map.size(), store.size());
+		for (long key = 0; key < 2000; key++) {
+			assertEquals(map.containsKey(key), store.containsKey(key));
+			assertEquals(map.get(key), store.get(key));
+		}
+
+		// released slots are reused
+		long live = 0;
+		for (Object o : map.values()) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			binary.write(o, out);
+			live += out.size();
+		}
+		assertEquals(live, store.liveBytes());
+		for (long key = 0; key < 2000; key++)
+			store.remove(key);
+		assertEquals(0, store.liveBytes());
+		long used = store.usedBytes();
+		assertEquals(used, store.releasedBytes());
+		for (long key = 0; key < 100; key++)
+			store.put(key, "value");
+		assertEquals(used, store.usedBytes());
+		assertEquals("value", store.get(42));
+	}
+
+	@Test
+	public void testCache() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = new BinaryFormatBuilder().cache(Wrapper.class, 2).register(Wrapper.class).build();
+
+		Wrapper w = new Wrapper();
+		w.l = 1L;
+		assertReadWrite("first", binary, w);
+
+		// the cached encoding is reused
+		w.l = 2L;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.write(w, out);
+		assertEquals(1L, (long) ((Wrapper) binary.read(new ByteArrayInputStream(out.toByteArray()))).l);
+
+		// evicted
+		binary.write(new Wrapper(), new ByteArrayOutputStream());
+		binary.write(new Wrapper(), new ByteArrayOutputStream());
+		assertReadWrite("evicted", binary, w);
+
+		try {
+			new BinaryFormatBuilder().register(Wrapper.class).cache(Wrapper.class, 2);
+			fail("cache set after register");
+		} catch (IllegalStateException e) { // ok
+		}
+
+		// striped cache stays bounded
+		EncodedCache cache = new EncodedCache(1024);
+		List<Object> keys = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			Object o = new Object();
+			keys.add(o);
+			cache.put(o, new byte[] { (byte) i });
+		}
+		assertTrue(cache.size() <= 1024);
+		assertEquals(4999 & 0xFF, cache.get(keys.get(4999))[0] & 0xFF);
+	}
+
+	@Test
+	public void testInternedString() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = new BinaryFormatBuilder().register(String.class, StringCodec.Interned.class).register(Pojo.class).build();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.write("EUR", out);
+		binary.write("EUR", out);
+		binary.write("", out);
+		String big = new String(new char[200]);
+		binary.write(big, out);
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		Object a = binary.read(in);
+		assertEquals("EUR", a);
+		assertTrue(a == binary.read(in));
+		assertEquals("", binary.read(in));
+		assertEquals(big, binary.read(in));
+
+		for (int i = 0; i < 100; i++)
+			assertReadWrite("random", binary, new String(new char[] { (char) rand.nextInt(0xD000), (char) rand.nextInt(128) }));
+
+		out.reset();
+		IoUtils.write(out, -1);
+		for (StringCodec codec : new StringCodec[] { new StringCodec(), new StringCodec.Interned() }) {
+			try {
+				codec.read(binary, new ByteArrayInputStream(out.toByteArray()));
+				fail("negative length read");
+			} catch (IOException e) { // ok
+			}
+		}
+	}
+
+	@Test
+	public void testDelta() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = new BinaryFormatBuilder().register(int[].class, IntegerCodec.DeltaArray.class).register(long[].class, LongCodec.DeltaArray.class).build();
+		BinaryFormat plain = new BinaryFormatBuilder().register(int[].class).register(long[].class).build();
+		assertTrue(!Arrays.equals(binary.hash(), plain.hash()));
+		// builders set with addBuilder are part of the hash too
+		byte[] delta = new BinaryFormatBuilder().addBuilder(ArrayList.class, CodecBuilder.INTCOLLECTION_DELTA).build().hash();
+		assertTrue(!Arrays.equals(delta, new BinaryFormatBuilder().addBuilder(ArrayList.class, CodecBuilder.INTCOLLECTION).build().hash()));
+		assertTrue(!Arrays.equals(delta, new BinaryFormatBuilder().build().hash()));
+		assertArrayEquals(delta, new BinaryFormatBuilder().addBuilder(ArrayList.class, CodecBuilder.INTCOLLECTION_DELTA).build().hash());
+		assertTrue(!Arrays.equals(new BinaryFormatBuilder().addBuilder(ArrayList.class, CodecBuilder.indexed(64)).build().hash(),
+				new BinaryFormatBuilder().addBuilder(ArrayList.class, CodecBuilder.indexed(128)).build().hash()));
+
+		int[] ids = new int[1000];
+		long[] times = new long[1000];
+		// 3 byte varints whatever the increments
+		int id = 1000000 + rand.nextInt(1000);
+		long time = System.currentTimeMillis();
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = id += rand.nextInt(10);
+			times[i] = time += rand.nextInt(1000);
+		}
+		assertReadWrite("ids", binary, ids);
+		assertReadWrite("times", binary, times);
+		assertTrue(size(binary, ids) * 2 < size(plain, ids));
+		assertTrue(size(binary, times) * 3 < size(plain, times));
+
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = rand.nextInt();
+			times[i] = rand.nextLong();
+		}
+		ids[0] = Integer.MIN_VALUE;
+		ids[1] = Integer.MAX_VALUE;
+		times[0] = Long.MIN_VALUE;
+		times[1] = Long.MAX_VALUE;
+		assertReadWrite("random ids", binary, ids);
+		assertReadWrite("random times", binary, times);
+	}
+
+	@Test
+	public void testStreamVByte() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = new BinaryFormatBuilder().register(int[].class, IntegerCodec.StreamVByte.class).register(long[].class, LongCodec.StreamVByte.class).register(String.class).build();
+
+		for (int n : new int[] { 0, 1, 2, 3, 4, 5, 1001 }) {
+			int[] ints = new int[n];
+			long[] longs = new long[n];
+			for (int i = 0; i < n; i++) {
+				int shift = rand.nextInt(32);
+				ints[i] = rand.nextInt() >>> shift;
+				longs[i] = rand.nextLong() >>> (shift * 2);
+			}
+			if (n > 1) {
+				ints[0] = -1;
+				longs[0] = -1;
+				ints[1] = 0;
+				longs[1] = 0;
+			}
+			assertReadWrite("ints", binary, ints);
+			assertReadWrite("longs", binary, longs);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			binary.write(ints, out);
+			binary.write(longs, out);
+			binary.write("end", out);
+			ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+			binary.skip(in);
+			binary.skip(in);
+			assertEquals("end", binary.read(in));
+		}
+	}
+
+	@Test
+	public void testPfor() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = new BinaryFormatBuilder().register(int[].class, IntegerCodec.PforArray.class).register(short[].class, ShortCodec.PforArray.class).register(long[].class, LongCodec.PforArray.class)
+				.register(String.class).build();
+		BinaryFormat plain = new BinaryFormatBuilder().register(int[].class).build();
+
+		for (int n : new int[] { 0, 1, 127, 128, 129, 1000 }) {
+			int[] ints = new int[n];
+			short[] shorts = new short[n];
+			long[] longs = new long[n];
+			for (int i = 0; i < n; i++) {
+				ints[i] = 100000 + rand.nextInt(64);
+				shorts[i] = (short) (rand.nextInt(16) - 8);
+				longs[i] = rand.nextInt(1000);
+			}
+			if (n > 10) {
+				ints[3] = Integer.MIN_VALUE;
+				ints[7] = Integer.MAX_VALUE;
+				shorts[5] = Short.MAX_VALUE;
+				longs[2] = Long.MIN_VALUE;
+				longs[9] = Long.MAX_VALUE;
+			}
+			assertReadWrite("ints", binary, ints);
+			assertReadWrite("shorts", binary, shorts);
+			assertReadWrite("longs", binary, longs);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			binary.write(ints, out);
+			binary.write(shorts, out);
+			binary.write(longs, out);
+			binary.write("end", out);
+			ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+			binary.skip(in);
+			binary.skip(in);
+			binary.skip(in);
+			assertEquals("end", binary.read(in));
+		}
+
+		int[] ints = new int[1000];
+		for (int i = 0; i < ints.length; i++)
+			ints[i] = 100000 + rand.nextInt(64);
+		assertTrue(size(binary, ints) * 3 < size(plain, ints));
+	}
+
+	@Test
+	public void testXor() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = new BinaryFormatBuilder().register(double[].class, DoubleCodec.XorArray.class).register(float[].class, FloatCodec.XorArray.class).register(String.class).build();
+		BinaryFormat plain = new BinaryFormatBuilder().register(double[].class).build();
+
+		for (int n : new int[] { 0, 1, 2, 1000 }) {
+			double[] doubles = new double[n];
+			float[] floats = new float[n];
+			double d = 100;
+			for (int i = 0; i < n; i++) {
+				if (rand.nextInt(4) != 0)
+					d += rand.nextInt(3) * 0.5;
+				doubles[i] = d;
+				floats[i] = (float) d;
+			}
+			if (n > 10) {
+				doubles[3] = Double.NaN;
+				doubles[4] = -0.;
+				doubles[5] = Double.MIN_VALUE;
+				floats[3] = Float.NEGATIVE_INFINITY;
+				floats[4] = rand.nextFloat();
+			}
+			assertReadWrite("doubles", binary, doubles);
+			assertReadWrite("floats", binary, floats);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			binary.write(doubles, out);
+			binary.write(floats, out);
+			binary.write("end", out);
+			ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+			binary.skip(in);
+			binary.skip(in);
+			assertEquals("end", binary.read(in));
+		}
+
+		double[] doubles = new double[1000];
+		for (int i = 1; i < doubles.length; i++)
+			doubles[i] = doubles[i - 1] + (rand.nextInt(8) == 0 ? 1 : 0);
+		assertTrue(size(binary, doubles) * 10 < size(plain, doubles));
+	}
+
+	@Test
+	public void testRle() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = new BinaryFormatBuilder().register(boolean[].class, BooleanCodec.RleArray.class).register(byte[].class, ByteCodec.RleArray.class).register(int[].class, IntegerCodec.RleArray.class)
+				.addBuilder(LinkedList.class, CodecBuilder.RLE).addBuilder(EnumTest[].class, CodecBuilder.RLE).register(LinkedList.class).register(EnumTest[].class).register(EnumTest.class).register(String.class).register(Integer.class).build();
+		BinaryFormat plain = new BinaryFormatBuilder().register(boolean[].class).register(EnumTest[].class).build();
+
+		for (int n : new int[] { 0, 1, 2, 3, 100, 1000 }) {
+			boolean[] bools = new boolean[n];
+			byte[] bytes = new byte[n];
+			int[] ints = new int[n];
+			EnumTest[] enums = new EnumTest[n];
+			LinkedList<Object> list = new LinkedList<>();
+			for (int i = 0; i < n; i++) {
+				bools[i] = rand.nextInt(50) == 0 || i > n / 2 && i < n / 2 + 40;
+				bytes[i] = (byte) (rand.nextInt(10) == 0 ? rand.nextInt() : 0);
+				ints[i] = i / 10 + (i % 7 == 0 ? i : 0);
+				enums[i] = i % 100 < 10 ? null : EnumTest.values()[i / 100 % 2];
+				list.add(i % 20 < 15 ? "a" : i);
+			}
+			assertReadWrite("bools", binary, bools);
+			assertReadWrite("bytes", binary, bytes);
+			assertReadWrite("ints", binary, ints);
+			assertReadWrite("enums", binary, enums);
+			assertReadWrite("list", binary, list);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			binary.write(bools, out);
+			binary.write(bytes, out);
+			binary.write(ints, out);
+			binary.write(enums, out);
+			binary.write(list, out);
+			binary.write("end", out);
+			ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+			for (int i = 0; i < 5; i++)
+				binary.skip(in);
+			assertEquals("end", binary.read(in));
+
+			if (n == 1000) {
+				assertTrue(size(binary, bools) < size(plain, bools));
+				assertTrue(size(binary, enums) * 10 < size(plain, enums));
+			}
+		}
+	}
+
+	@Test
+	public void testColumnar() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = new BinaryFormatBuilder().register(int[].class, IntegerCodec.DeltaArray.class).addBuilder(ArrayList.class, CodecBuilder.COLUMNAR).addBuilder(Wrapper[].class, CodecBuilder.COLUMNAR)
+				.register(ArrayList.class).register(Wrapper[].class).register(Primitive.class).register(String.class).build();
+		BinaryFormat plain = new BinaryFormatBuilder().register(ArrayList.class).register(Primitive.class).build();
+
+		ArrayList<Object> list = new ArrayList<>();
+		assertReadWrite("empty", binary, list);
+		for (int i = 0; i < 1000; i++) {
+			Primitive o = new Primitive();
+			o.bool = i % 3 == 0;
+			o.b = (byte) i;
+			o.c = (char) rand.nextInt(65536);
+			o.s = (short) rand.nextInt(65536);
+			o.i = 1000000 + i;
+			o.l = rand.nextLong();
+			o.f = rand.nextFloat();
+			o.d = rand.nextDouble();
+			list.add(o);
+		}
+		assertReadWrite("columns", binary, list);
+		assertTrue(size(binary, list) < size(plain, list));
+
+		Wrapper[] wrappers = new Wrapper[100];
+		for (int i = 0; i < wrappers.length; i++) {
+			wrappers[i] = new Wrapper();
+			wrappers[i].i = i % 2 == 0 ? null : i;
+			wrappers[i].bool = i % 3 == 0 ? null : i % 3 == 1;
+		}
+		assertReadWrite("wrappers", binary, wrappers);
+
+		list.add(5, "mixed");
+		list.add(null);
+		assertReadWrite("mixed", binary, list);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.write(wrappers, out);
+		binary.write(list, out);
+		binary.write("end", out);
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		binary.skip(in);
+		binary.skip(in);
+		assertEquals("end", binary.read(in));
+
+		// unknown column class id
+		byte[] corrupt = { 1, 127 };
+		try {
+			Columnar.read(binary, new ByteArrayInputStream(corrupt), Object.class);
+			fail("unknown id read");
+		} catch (IOException e) { // ok
+		}
+		try {
+			Columnar.skip(binary, new ByteArrayInputStream(corrupt));
+			fail("unknown id skipped");
+		} catch (IOException e) { // ok
+		}
+
+		// equal mutable values aren't shared between rows
+		binary = new BinaryFormatBuilder().addBuilder(Typed[].class, CodecBuilder.COLUMNAR).register(Typed[].class).register(ArrayList.class).register(String.class).build();
+		Typed[] typed = new Typed[10];
+		for (int i = 0; i < typed.length; i++) {
+			typed[i] = new Typed();
+			typed[i].names = new ArrayList<>(Arrays.asList("a", "b"));
+		}
+		out.reset();
+		binary.write(typed, out);
+		Typed[] read = (Typed[]) binary.read(new ByteArrayInputStream(out.toByteArray()));
+		assertArrayEquals(typed, read);
+		assertNotSame(read[0].names, read[1].names);
+	}
+
+	@Test
+	public void testDictionary() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = new BinaryFormatBuilder().addBuilder(ArrayList.class, CodecBuilder.DICTIONARY).addBuilder(String[].class, CodecBuilder.DICTIONARY).register(ArrayList.class)
+				.register(String[].class).register(String.class).register(EnumTest.class).register(LinkedList.class).build();
+		BinaryFormat plain = new BinaryFormatBuilder().register(String[].class).register(String.class).build();
+
+		String[] venues = { "XPAR", "XLON", "XNYS", "XNAS" };
+		for (int n : new int[] { 0, 1, 100, 1000 }) {
+			String[] strings = new String[n];
+			ArrayList<Object> list = new ArrayList<>();
+			for (int i = 0; i < n; i++) {
+				strings[i] = i % 10 == 0 ? null : venues[rand.nextInt(venues.length)];
+				list.add(i % 3 == 0 ? EnumTest.values()[i % 2] : strings[i]);
+			}
+			assertReadWrite("strings", binary, strings);
+			assertReadWrite("list", binary, list);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			binary.write(strings, out);
+			binary.write(list, out);
+			binary.write("end", out);
+			ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+			String[] read = (String[]) binary.read(in);
+			for (int i = 1; i < n; i++) {
+				if (read[i] != null && read[i].equals(read[0]))
+					assertSame(read[0], read[i]);
+			}
+			binary.skip(in);
+			assertEquals("end", binary.read(in));
+
+			if (n == 1000)
+				assertTrue(size(binary, strings) * 3 < size(plain, strings));
+		}
+
+		// equals values of different classes aren't merged
+		ArrayList<Object> lists = new ArrayList<>();
+		lists.add(new ArrayList<>());
+		lists.add(new LinkedList<>());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.write(lists, out);
+		List<?> read = (List<?>) binary.read(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(LinkedList.class, read.get(1).getClass());
+	}
+
+	@Test
+	public void testRuns() throws ReflectiveOperationException, IOException {
+		BinaryFormat binary = format(ArrayList.class, Comparable[].class, Integer.class, String.class);
+
+		ArrayList<Object> list = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+			list.add(i % 100);
+		assertReadWrite("same", binary, list);
+		assertTrue(size(binary, list) < 1100);
+
+		Comparable<?>[] mixed = new Comparable[300];
+		for (int i = 0; i < mixed.length; i++)
+			mixed[i] = i % 100 < 10 ? null : i % 100 < 50 ? (Comparable<?>) i : "s" + i;
+		assertReadWrite("mixed", binary, mixed);
+		// the collection walk finds the same runs as the array
+		ByteArrayOutputStream a = new ByteArrayOutputStream();
+		ByteArrayOutputStream c = new ByteArrayOutputStream();
+		binary.write(mixed, a);
+		binary.write(new ArrayList<>(Arrays.asList(mixed)), c);
+		assertArrayEquals(Arrays.copyOfRange(a.toByteArray(), 1, a.size()), Arrays.copyOfRange(c.toByteArray(), 1, c.size()));
+		list.addAll(Arrays.asList(mixed));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.write(mixed, out);
+		binary.write(list, out);
+		binary.write("end", out);
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		binary.skip(in);
+		assertEquals(list, binary.readStream(in, Object.class).collect(Collectors.toList()));
+		assertEquals("end", binary.read(in));
+
+		try {
+			binary.write(new Comparable[] { 1, 2L }, new ByteArrayOutputStream());
+			fail("unregistered element");
+		} catch (IOException e) { // OK
+		}
+	}
+
+	@Test
+	public void testGeneric() throws ReflectiveOperationException, IOException {
+		BinaryFormatBuilder b = new BinaryFormatBuilder();
+		b.register(Typed.class).register(ArrayList.class).register(HashMap.class);
+		BinaryFormat binary = b.build();
+
+		Typed o = new Typed();
+		assertReadWrite("null", binary, o);
+		o.names = new ArrayList<>(Arrays.asList("a", null, "b"));
+		o.qty = new HashMap<>();
+		for (int i = 0; i < 100; i++)
+			o.qty.put("k" + i, i % 10 == 0 ? null : (long) i);
+		o.ints = new LinkedList<>(Arrays.asList(1, 2, 3));
+		o.enums = new HashSet<>(Arrays.asList(EnumTest.values()));
+		o.after = 42;
+		assertReadWrite("typed", binary, o);
+		assertTrue(size(binary, o) < size(binary, o.names) + size(binary, o.qty) + size(binary, new ArrayList<>(o.ints)));
+
+		// not the field implementation, written as an object
+		Typed other = new Typed();
+		other.names = Arrays.asList("x", "y");
+		other.qty = new HashMap<>();
+		other.after = 7;
+		try {
+			assertReadWrite("other", binary, other);
+			fail("Arrays$ArrayList isn't registered");
+		} catch (IOException e) { // OK
+		}
+		other.names = new LinkedList<>(other.names);
+		BinaryFormat first = binary;
+		b = new BinaryFormatBuilder();
+		b.register(Typed.class).register(LinkedList.class);
+		binary = b.build();
+		assertReadWrite("other", binary, other);
+		// element codecs are resolved per format
+		assertReadWrite("first format", first, o);
+		assertReadWrite("second format", binary, o);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.write(o, out);
+		binary.write(other, out);
+		binary.write(o, out);
+		byte[] bytes = out.toByteArray();
+		ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+		binary.skip(in);
+		Typed p = b.projection(Typed.class, "after").read(binary, in);
+		assertEquals(7, p.after);
+		assertEquals(null, p.names);
+		assertEquals(o, binary.read(in));
+
+		View view = b.view(Typed.class).wrap(binary, bytes, 0);
+		assertEquals(o.qty, view.get("qty"));
+		assertEquals(42, view.getInt("after"));
+	}
+
+	private static int size(BinaryFormat binary, Object o) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		binary.write(o, out);
+		return out.size();
+	}
+
 	private static void assertReadWrite(String msg, BinaryFormat binary, Object o) throws IOException {
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		binary.write(o, out);
@@ -0,0 +1,66 @@
+/**
+ * 
+ */
+package unknow.serialize;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author unknow
+ */
+public class Typed {
+	public List<String> names;
+	public Map<String, Long> qty;
+	public LinkedList<Integer> ints;
+	public Set<EnumTest> enums;
+	public int after;
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + after;
+		result = prime * result + ((enums == null) ? 0 : enums.hashCode());
+		result = prime * result + ((ints == null) ? 0 : ints.hashCode());
+		result = prime * result + ((names == null) ? 0 : names.hashCode());
+		result = prime * result + ((qty == null) ? 0 : qty.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Typed other = (Typed) obj;
+		if (after != other.after)
+			return false;
+		if (enums == null) {
+			if (other.enums != null)
+				return false;
+		} else if (!enums.equals(other.enums))
+			return false;
+		if (ints == null) {
+			if (other.ints != null)
+				return false;
+		} else if (!ints.equals(other.ints))
+			return false;
+		if (names == null) {
+			if (other.names != null)
+				return false;
+		} else if (!names.equals(other.names))
+			return false;
+		if (qty == null) {
+			if (other.qty != null)
+				return false;
+		} else if (!qty.equals(other.qty))
+			return false;
+		return true;
+	}
+}